@@ -3,29 +3,50 @@ package ru.mail.park;
 import org.eclipse.jetty.websocket.api.WebSocketBehavior;
 import org.eclipse.jetty.websocket.api.WebSocketPolicy;
 import org.eclipse.jetty.websocket.server.WebSocketServerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
-import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
-import org.springframework.web.socket.handler.PerConnectionWebSocketHandler;
 import org.springframework.web.socket.server.jetty.JettyRequestUpgradeStrategy;
 import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 import org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor;
 import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.logging.config.LogSettings;
+import ru.mail.park.monitoring.config.MonitoringSettings;
+import ru.mail.park.services.SessionTokenService;
+import ru.mail.park.services.config.AccountSettings;
+import ru.mail.park.services.config.SecuritySettings;
 import ru.mail.park.websocket.GameSocketHandler;
+import ru.mail.park.websocket.SessionTokenHandshakeInterceptor;
+import ru.mail.park.websocket.compression.CompressionHandshakeHandler;
+import ru.mail.park.websocket.compression.TunablePerMessageDeflateExtension;
+import ru.mail.park.websocket.config.WebSocketSettings;
 
 import java.util.concurrent.TimeUnit;
 
-@EnableConfigurationProperties(GameSettings.class)
+@EnableConfigurationProperties({GameSettings.class, WebSocketSettings.class, SecuritySettings.class,
+        AccountSettings.class, LogSettings.class, MonitoringSettings.class})
 @EnableWebSocket
 @SpringBootApplication
 public class Application implements WebSocketConfigurer {
-    public static final long IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5);
+    /**
+     * Transport-level fallback behind the heartbeat. A constant, since the handshake handler is created
+     * before the static settings are bound.
+     */
+    public static final long IDLE_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(60);
     public static final int BUFFER_SIZE_BYTES = 8192;
+    private final GameSocketHandler gameSocketHandler;
+    private final SessionTokenService sessionTokenService;
+
+    @Autowired
+    public Application(GameSocketHandler gameSocketHandler, SessionTokenService sessionTokenService) {
+        this.gameSocketHandler = gameSocketHandler;
+        this.sessionTokenService = sessionTokenService;
+    }
 
     public static void main(String[] args) {
         SpringApplication.run(Application.class, args);
@@ -33,8 +54,9 @@ public class Application implements WebSocketConfigurer {
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry webSocketHandlerRegistry) {
-        webSocketHandlerRegistry.addHandler(gameWebSocketHandler(), "/game")
-                .addInterceptors(new HttpSessionHandshakeInterceptor()).setAllowedOrigins("*");
+        webSocketHandlerRegistry.addHandler(gameSocketHandler, "/game").setHandshakeHandler(handshakeHandler())
+                .addInterceptors(new SessionTokenHandshakeInterceptor(sessionTokenService),
+                        new HttpSessionHandshakeInterceptor()).setAllowedOrigins("*");
     }
 
     @Bean
@@ -42,11 +64,11 @@ public class Application implements WebSocketConfigurer {
         final WebSocketPolicy policy = new WebSocketPolicy(WebSocketBehavior.SERVER);
         policy.setInputBufferSize(BUFFER_SIZE_BYTES);
         policy.setIdleTimeout(IDLE_TIMEOUT_MS);
-        return new DefaultHandshakeHandler(new JettyRequestUpgradeStrategy(new WebSocketServerFactory(policy)));
-    }
-
-    @Bean
-    public WebSocketHandler gameWebSocketHandler() {
-        return new PerConnectionWebSocketHandler(GameSocketHandler.class);
+        final WebSocketServerFactory factory = new WebSocketServerFactory(policy);
+        factory.getExtensionFactory().unregister("deflate-frame");
+        factory.getExtensionFactory().unregister("x-webkit-deflate-frame");
+        factory.getExtensionFactory().register(CompressionHandshakeHandler.EXTENSION_NAME,
+                TunablePerMessageDeflateExtension.class);
+        return new CompressionHandshakeHandler(new JettyRequestUpgradeStrategy(factory));
     }
 }
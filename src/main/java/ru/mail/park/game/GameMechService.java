@@ -1,84 +1,239 @@
 package ru.mail.park.game;
 
+import org.jctools.maps.NonBlockingHashMapLong;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.CloseStatus;
+import ru.mail.park.game.bot.BotPlayer;
+import ru.mail.park.game.bot.BotService;
 import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.game.journal.EndReason;
+import ru.mail.park.game.journal.MoveJournal;
 import ru.mail.park.game.mechanics.GameSession;
 import ru.mail.park.game.mechanics.Player;
 import ru.mail.park.game.messaging.PlayerAction;
 import ru.mail.park.game.messaging.ServerSnapService;
 import ru.mail.park.model.UserProfile;
+import ru.mail.park.monitoring.ActionEvent;
+import ru.mail.park.monitoring.LatencyHistogram;
+import ru.mail.park.monitoring.MatchmakingWaitEvent;
+import ru.mail.park.monitoring.SessionEndEvent;
+import ru.mail.park.monitoring.SessionStartEvent;
 import ru.mail.park.services.AccountService;
+import ru.mail.park.websocket.Connection;
 import ru.mail.park.websocket.RemotePointService;
 
+import javax.annotation.PreDestroy;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 
 @Service
 public class GameMechService {
     private final Logger logger = LoggerFactory.getLogger(getClass());
-    private static final int RANK_BOUNTY = GameSettings.getRankBounty();
     private RemotePointService remotePointService;
     private ServerSnapService serverSnapService;
     private AccountService accountService;
-    private Queue<UserProfile> queue = new ConcurrentLinkedQueue<>();
-    private Map<UserProfile, GameSession> sessions = new ConcurrentHashMap<>();
+    private TargetPool targetPool;
+    private BotService botService;
+    private MoveJournal moveJournal;
+    private Queue<Connection> queue = new ConcurrentLinkedQueue<>();
+    private NonBlockingHashMapLong<GameSession> sessions = new NonBlockingHashMapLong<>();
+    private final LatencyHistogram moveLatency = new LatencyHistogram();
+    private ScheduledExecutorService timers = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "game-timers");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     @Autowired
     public GameMechService(RemotePointService remotePointService, ServerSnapService serverSnapService,
-                           AccountService accountService) {
+                           AccountService accountService, TargetPool targetPool, BotService botService,
+                           MoveJournal moveJournal) {
         this.remotePointService = remotePointService;
         this.serverSnapService = serverSnapService;
         this.accountService = accountService;
+        this.targetPool = targetPool;
+        this.botService = botService;
+        this.moveJournal = moveJournal;
     }
 
-    public void addPlayer(UserProfile userProfile) {
-        if (!queue.contains(userProfile) && !sessions.containsKey(userProfile)) {
-            queue.add(userProfile);
+    @PreDestroy
+    public void stop() {
+        timers.shutdownNow();
+    }
+
+    /**
+     * @return sessions being played, each once
+     */
+    public Collection<GameSession> getSessions() {
+        final Map<Long, GameSession> distinct = new HashMap<>();
+        for (GameSession session : sessions.values()) {
+            distinct.put(session.getId(), session);
+        }
+        return distinct.values();
+    }
+
+    public int getQueueLength() {
+        return queue.size();
+    }
+
+    /**
+     * @return microseconds each move took, from waiting for the session to the snaps being queued
+     */
+    public LatencyHistogram getMoveLatency() {
+        return moveLatency;
+    }
+
+    /**
+     * Puts a session restored from a checkpoint back into play. Players come back by connecting again,
+     * and the ones who don't within {@code game.reconnect-grace-ms} lose the game.
+     */
+    public void restore(GameSession session) {
+        moveJournal.restored(session);
+        final long now = System.currentTimeMillis();
+        session.getFirst().setAwaySince(now);
+        session.getSecond().setAwaySince(now);
+        sessions.put(session.getFirst().getUser().getId(), session);
+        sessions.put(session.getSecond().getUser().getId(), session);
+        scheduleAbandonCheck(session, GameSettings.getReconnectGraceMs());
+    }
+
+    /**
+     * Re-attaches a player whose game is still on to their new connection and resyncs them with a full snap.
+     */
+    @SuppressWarnings("SynchronizationOnLocalVariableOrMethodParameter")
+    public void handleConnect(Connection connection) {
+        final GameSession session = sessions.get(connection.getUserProfile().getId());
+        if (session == null) {
+            return;
+        }
+        synchronized (session) {
+            if (session.isOver()) {
+                return;
+            }
+            final Player player = session.getPlayer(connection.getUserProfile());
+            player.setAwaySince(0);
+            connection.join(session, player);
+            try {
+                serverSnapService.sendSnapForPlayer(session, player);
+            } catch (IOException e) {
+                logger.error("failed to resync player " + connection.getUserProfile().getLogin(), e);
+            }
+        }
+    }
+
+    /**
+     * Starts sending the connection every snap of the game the user plays in.
+     *
+     * @return false if the user is not playing or the connection is a player's or waiting for a game
+     */
+    @SuppressWarnings("SynchronizationOnLocalVariableOrMethodParameter")
+    public boolean addSpectator(Connection connection, UserProfile watched) {
+        final GameSession session = sessions.get(watched.getId());
+        if (session == null || isPlaying(connection)) {
+            return false;
+        }
+        removeSpectator(connection);
+        synchronized (session) {
+            if (session.isOver()) {
+                return false;
+            }
+            session.getSpectators().add(connection);
+            connection.watch(session);
+            if (isPlaying(connection)) {
+                // queued or joined a game meanwhile, after addPlayer or join looked for a watched game
+                removeSpectator(connection);
+                return false;
+            }
+            try {
+                serverSnapService.sendSnapForSpectator(session, connection);
+            } catch (IOException e) {
+                logger.error("failed to send a snap to spectator " + connection.getUserProfile().getLogin(), e);
+            }
+        }
+        return true;
+    }
+
+    public void removeSpectator(Connection connection) {
+        final GameSession watching = connection.getWatching();
+        if (watching != null) {
+            watching.getSpectators().remove(connection);
+        }
+        connection.watch(null);
+    }
+
+    public void addPlayer(Connection connection) {
+        if (connection.getGameSession() == null && connection.enqueue()) {
+            removeSpectator(connection);
+            queue.add(connection);
             startGames();
+            botService.scheduleMatch(() -> startBotGame(connection));
         }
     }
 
-    public void addPlayerAction(UserProfile userProfile, PlayerAction action) {
-        final GameSession session = sessions.get(userProfile);
+    public void addPlayerAction(Connection connection, PlayerAction action) {
+        final GameSession session = connection.getGameSession();
         if (session != null) {
-            processAction(action, userProfile, session);
+            processAction(action, connection.getPlayer(), session);
         }
     }
 
+    /**
+     * Keeps the game of a dropped player going for {@code game.reconnect-grace-ms}, so they can reconnect
+     * and carry on. A player still away after that loses the game.
+     */
     @SuppressWarnings("SynchronizationOnLocalVariableOrMethodParameter")
-    public void handleDisconnect(UserProfile userProfile) {
-        final GameSession session = sessions.get(userProfile);
-        if (session == null) {
+    public void handleDisconnect(Connection connection) {
+        removeSpectator(connection);
+        if (queue.remove(connection)) {
+            connection.dequeue();
+        }
+        final GameSession session = connection.getGameSession();
+        if (session == null || !remotePointService.isCurrent(connection)) {
             return;
         }
         synchronized (session) {
-            final Player opponent = session.getOpponent(session.getPlayer(userProfile));
-            if (isConnected(opponent.getUser())) {
-                endGame(session, opponent);
-            } else {
-                terminateSession(session, CloseStatus.NORMAL);
+            if (session.isOver()) {
+                return;
             }
+            connection.getPlayer().setAwaySince(System.currentTimeMillis());
         }
+        scheduleAbandonCheck(session, GameSettings.getReconnectGraceMs());
     }
 
-    private void startGames() {
-        queue.removeIf(userProfile -> !isConnected(userProfile));
+    private synchronized void startGames() {
+        queue.removeIf(connection -> {
+            if (isConnected(connection.getUserProfile())) {
+                return false;
+            }
+            connection.dequeue();
+            return true;
+        });
         while (queue.size() >= 2) {
-            final UserProfile first = queue.poll();
-            final UserProfile second = queue.poll();
-            final GameSession session = new GameSession(new Player(first), new Player(second));
-            sessions.put(first, session);
-            sessions.put(second, session);
+            final Connection first = queue.poll();
+            final Connection second = queue.poll();
+            first.dequeue();
+            second.dequeue();
+            final Player firstPlayer = new Player(first.getUserProfile());
+            final Player secondPlayer = new Player(second.getUserProfile());
+            final GameSession session = new GameSession(firstPlayer, secondPlayer, targetPool.take());
+            moveJournal.started(session);
+            recordStart(session, first, second);
+            sessions.put(first.getUserProfile().getId(), session);
+            sessions.put(second.getUserProfile().getId(), session);
+            first.join(session, firstPlayer);
+            second.join(session, secondPlayer);
             try {
                 serverSnapService.sendSnapsForSession(session);
             } catch (IOException e) {
@@ -88,13 +243,51 @@ public class GameMechService {
         }
     }
 
+    /**
+     * Gives a bot opponent to a player still waiting, or tries again later if all bots are busy.
+     */
+    private synchronized void startBotGame(Connection connection) {
+        if (!queue.contains(connection) || !isConnected(connection.getUserProfile())) {
+            return;
+        }
+        final BotPlayer bot = botService.tryCreateBot();
+        if (bot == null) {
+            botService.scheduleMatch(() -> startBotGame(connection));
+            return;
+        }
+        if (!queue.remove(connection)) {
+            botService.release(bot);
+            return;
+        }
+        connection.dequeue();
+        final Player player = new Player(connection.getUserProfile());
+        final GameSession session = new GameSession(player, bot, targetPool.take());
+        moveJournal.started(session);
+        recordStart(session, connection, null);
+        sessions.put(connection.getUserProfile().getId(), session);
+        connection.join(session, player);
+        try {
+            serverSnapService.sendSnapsForSession(session);
+        } catch (IOException e) {
+            logger.error("failed to send initial snaps", e);
+            terminateSession(session, CloseStatus.NORMAL);
+        }
+        botService.play(session, bot, action -> processAction(action, bot, session));
+    }
+
     @SuppressWarnings("SynchronizationOnLocalVariableOrMethodParameter")
-    private void processAction(PlayerAction action, UserProfile userProfile, GameSession session) {
+    private void processAction(PlayerAction action, Player player, GameSession session) {
+        final long startedAt = System.nanoTime();
+        final ActionEvent event = new ActionEvent();
+        event.begin();
         synchronized (session) {
-            final Player player = session.getPlayer(userProfile);
+            if (session.isOver()) {
+                return;
+            }
             session.processAction(player, action);
+            moveJournal.moved(session, player, action);
             if (session.isWinner(player)) {
-                endGame(session, player);
+                endGame(session, player, EndReason.WON);
             } else {
                 try {
                     serverSnapService.sendSnapsForSession(session);
@@ -104,21 +297,82 @@ public class GameMechService {
                 }
             }
         }
+        moveLatency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt));
+        if (event.shouldCommit()) {
+            event.sessionId = session.getId();
+            event.login = player.getUser().getLogin();
+            event.row = action.getRow();
+            event.col = action.getCol();
+            event.positive = action.isPositive();
+            event.commit();
+        }
+    }
+
+    private void scheduleAbandonCheck(GameSession session, long delayMs) {
+        timers.schedule(() -> checkAbandoned(session), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ends the game for players away longer than the grace period, or checks again once the grace period
+     * of a player who is away for less runs out.
+     */
+    @SuppressWarnings("SynchronizationOnLocalVariableOrMethodParameter")
+    private void checkAbandoned(GameSession session) {
+        synchronized (session) {
+            if (session.isOver()) {
+                return;
+            }
+            final long now = System.currentTimeMillis();
+            final long firstLeft = graceLeft(session.getFirst(), now);
+            final long secondLeft = graceLeft(session.getSecond(), now);
+            if (firstLeft > 0 || secondLeft > 0) {
+                scheduleAbandonCheck(session, Math.max(firstLeft, secondLeft));
+                return;
+            }
+            final boolean firstGone = firstLeft == 0;
+            final boolean secondGone = secondLeft == 0;
+            if (firstGone && secondGone) {
+                terminateSession(session, CloseStatus.NORMAL);
+            } else if (firstGone) {
+                endGame(session, session.getSecond(), EndReason.FORFEITED);
+            } else if (secondGone) {
+                endGame(session, session.getFirst(), EndReason.FORFEITED);
+            }
+        }
+    }
+
+    /**
+     * @return ms of grace the player has left, 0 if it has run out and -1 if the player is not away
+     */
+    private static long graceLeft(Player player, long now) {
+        final long awaySince = player.getAwaySince();
+        if (player.isBot() || awaySince == 0) {
+            return -1;
+        }
+        return Math.max(0, awaySince + GameSettings.getReconnectGraceMs() - now);
     }
 
     private boolean isConnected(UserProfile userProfile) {
         return remotePointService.isConnected(userProfile);
     }
 
-    private void endGame(GameSession session, Player winner) {
-        final UserProfile winnerProfile = winner.getUser();
-        final UserProfile loserProfile = session.getOpponent(winner).getUser();
-        winnerProfile.setRank(winnerProfile.getRank() + RANK_BOUNTY);
-        loserProfile.setRank(loserProfile.getRank() - RANK_BOUNTY);
-        final List<UserProfile> userProfiles = new ArrayList<>();
-        userProfiles.add(winnerProfile);
-        userProfiles.add(loserProfile);
-        accountService.updateUsers(userProfiles);
+    private static boolean isPlaying(Connection connection) {
+        return connection.isQueued() || connection.getGameSession() != null;
+    }
+
+    private void endGame(GameSession session, Player winner, EndReason reason) {
+        final Player loser = session.getOpponent(winner);
+        if (!winner.isBot() && !loser.isBot()) {
+            final UserProfile winnerProfile = winner.getUser();
+            final UserProfile loserProfile = loser.getUser();
+            final int rankBounty = GameSettings.getRankBounty();
+            winnerProfile.setRank(winnerProfile.getRank() + rankBounty);
+            loserProfile.setRank(loserProfile.getRank() - rankBounty);
+            accountService.transferRank(winnerProfile, loserProfile, rankBounty);
+        }
+        moveJournal.ended(session, winner, reason);
+        recordEnd(session, winner);
+        session.finish();
         try {
             serverSnapService.sendGameOverSnaps(session, winner);
         } catch (IOException e) {
@@ -129,9 +383,53 @@ public class GameMechService {
     }
 
     private void terminateSession(GameSession session, CloseStatus closeStatus) {
-        sessions.remove(session.getFirst().getUser());
-        sessions.remove(session.getSecond().getUser());
+        if (!session.isOver()) {
+            moveJournal.ended(session, null, EndReason.CALLED_OFF);
+            recordEnd(session, null);
+        }
+        session.finish();
+        session.getSpectators().clear();
+        sessions.remove(session.getFirst().getUser().getId(), session);
+        sessions.remove(session.getSecond().getUser().getId(), session);
         remotePointService.cutDownConnection(session.getFirst().getUser(), closeStatus);
         remotePointService.cutDownConnection(session.getSecond().getUser(), closeStatus);
     }
+
+    /**
+     * @param second null when the first player is matched with a bot
+     */
+    private static void recordStart(GameSession session, Connection first, @Nullable Connection second) {
+        final long now = System.nanoTime();
+        recordWait(first, second == null, now);
+        if (second != null) {
+            recordWait(second, false, now);
+        }
+        final SessionStartEvent event = new SessionStartEvent();
+        if (event.isEnabled()) {
+            event.sessionId = session.getId();
+            event.first = session.getFirst().getUser().getLogin();
+            event.second = session.getSecond().getUser().getLogin();
+            event.bot = session.getSecond().isBot();
+            event.commit();
+        }
+    }
+
+    private static void recordWait(Connection connection, boolean bot, long now) {
+        final MatchmakingWaitEvent event = new MatchmakingWaitEvent();
+        if (event.isEnabled()) {
+            event.login = connection.getUserProfile().getLogin();
+            event.bot = bot;
+            event.wait = now - connection.getQueuedAt();
+            event.commit();
+        }
+    }
+
+    private static void recordEnd(GameSession session, @Nullable Player winner) {
+        final SessionEndEvent event = new SessionEndEvent();
+        if (event.isEnabled()) {
+            event.sessionId = session.getId();
+            event.winner = winner == null ? null : winner.getUser().getLogin();
+            event.commit();
+        }
+    }
 }
@@ -0,0 +1,136 @@
+package ru.mail.park.game;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.game.mechanics.Square;
+import ru.mail.park.game.solver.TargetCatalogue;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Targets for new game sessions, generated ahead of time by a background thread
+ * so that matchmaking does not scramble squares itself.
+ * With {@code game.catalogue-path} set, targets of {@code game.target-difficulty} moves are picked from
+ * the catalogue instead of being scrambled.
+ * With {@code game.random-seed} set, the n-th session always gets the same target.
+ */
+@Service
+public class TargetPool {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private BlockingQueue<Square> pool;
+    private Thread producer;
+    private boolean seeded;
+    private TargetCatalogue catalogue;
+
+    /**
+     * Started once the context is refreshed: the settings are static and may not be bound yet
+     * when this service is created.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public synchronized void start() {
+        if (producer != null) {
+            return;
+        }
+        final Long seed = GameSettings.getRandomSeed();
+        seeded = seed != null;
+        pool = new ArrayBlockingQueue<>(GameSettings.getTargetPoolSize());
+        catalogue = openCatalogue();
+        final SplittableRandom random = seeded ? new SplittableRandom(seed) : new SplittableRandom();
+        producer = new Thread(() -> produce(random), "target-pool");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (producer != null) {
+            producer.interrupt();
+        }
+        if (catalogue != null) {
+            try {
+                catalogue.close();
+            } catch (IOException e) {
+                logger.warn("failed to close target catalogue", e);
+            }
+        }
+    }
+
+    /**
+     * Falls back to scrambling a target on the calling thread when the pool runs dry,
+     * unless the pool is seeded and the order of targets matters.
+     */
+    public Square take() {
+        final BlockingQueue<Square> current = pool;
+        if (current == null) {
+            return new Square(GameSettings.getTargetScramble());
+        }
+        final Square target = current.poll();
+        if (target != null) {
+            return target;
+        }
+        if (!seeded) {
+            return new Square(GameSettings.getTargetScramble());
+        }
+        try {
+            return current.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for a seeded target", e);
+        }
+    }
+
+    private void produce(SplittableRandom random) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                pool.put(nextTarget(random));
+            }
+        } catch (InterruptedException ignore) {
+            logger.debug("target pool stopped");
+        }
+    }
+
+    private Square nextTarget(SplittableRandom random) {
+        if (catalogue != null) {
+            final Square target = catalogue.pick(GameSettings.getTargetDifficulty(), random);
+            if (target != null) {
+                return target;
+            }
+        }
+        return new Square(GameSettings.getTargetScramble(), random);
+    }
+
+    @Nullable
+    private TargetCatalogue openCatalogue() {
+        final String path = GameSettings.getCataloguePath();
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        try {
+            final TargetCatalogue opened = new TargetCatalogue(Paths.get(path));
+            if (!opened.fits(GameSettings.getSquareSize(), GameSettings.getSquareMinValue(),
+                    GameSettings.getSquareMaxValue())) {
+                logger.warn("target catalogue {} was built for other square settings, scrambling targets", path);
+                opened.close();
+                return null;
+            }
+            if (opened.count(GameSettings.getTargetDifficulty()) == 0) {
+                logger.warn("target catalogue {} has no targets of {} moves, scrambling targets", path,
+                        GameSettings.getTargetDifficulty());
+            }
+            return opened;
+        } catch (IOException e) {
+            logger.warn("failed to open target catalogue {}, scrambling targets", path, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package ru.mail.park.game.bot;
+
+import ru.mail.park.game.mechanics.Player;
+import ru.mail.park.game.mechanics.Square;
+import ru.mail.park.game.messaging.PlayerAction;
+import ru.mail.park.game.solver.Solver;
+import ru.mail.park.model.UserProfile;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Opponent played by the server. Follows a shortest solution found by the solver and, depending on its skill,
+ * now and then makes a random move instead and takes it back later. Only moves that can be taken back
+ * are made by mistake, so the bot never strays into squares the solver gives up on.
+ * Not thread-safe: moves of one bot are made one after another.
+ */
+public class BotPlayer extends Player {
+    /**
+     * Never the id of a stored user, so bots don't clash with humans in live game state.
+     */
+    public static final int BOT_ID = -1;
+    /**
+     * Refused at signup, so no player can pass for a bot.
+     */
+    public static final String LOGIN = "bot";
+    private final Solver solver;
+    private final double skill;
+    private final SplittableRandom random;
+    private final Deque<PlayerAction> plan = new ArrayDeque<>();
+
+    public BotPlayer(Solver solver, double skill, SplittableRandom random) {
+        super(new UserProfile(BOT_ID, LOGIN, "", "", 0));
+        this.solver = solver;
+        this.skill = skill;
+        this.random = random;
+    }
+
+    @Override
+    public boolean isBot() {
+        return true;
+    }
+
+    SplittableRandom getRandom() {
+        return random;
+    }
+
+    public PlayerAction nextMove(Square target) {
+        if (random.nextDouble() >= skill) {
+            final PlayerAction mistake = randomMove();
+            final PlayerAction undo = inverse(mistake);
+            if (takesBack(mistake, undo)) {
+                plan.push(undo);
+                return mistake;
+            }
+        }
+        if (plan.isEmpty()) {
+            final List<PlayerAction> solution = solver.solve(getSquare(), target);
+            if (solution == null || solution.isEmpty()) {
+                return randomMove();
+            }
+            plan.addAll(solution);
+        }
+        return plan.poll();
+    }
+
+    /**
+     * A move is not taken back by its inverse when it pushes a cell past the value bounds.
+     */
+    private boolean takesBack(PlayerAction move, PlayerAction undo) {
+        final int[][] matrix = getSquare().getMatrix();
+        final int[][] copy = new int[matrix.length][];
+        for (int i = 0; i < matrix.length; i++) {
+            copy[i] = matrix[i].clone();
+        }
+        final Square probe = new Square(copy);
+        apply(probe, move);
+        apply(probe, undo);
+        return probe.equals(getSquare());
+    }
+
+    private static void apply(Square square, PlayerAction action) {
+        if (action.isPositive()) {
+            square.activate(action.getRow(), action.getCol(), 2, 1);
+        } else {
+            square.activate(action.getRow(), action.getCol(), -2, -1);
+        }
+    }
+
+    private static PlayerAction inverse(PlayerAction action) {
+        final PlayerAction inverse = new PlayerAction();
+        inverse.setRow(action.getRow());
+        inverse.setCol(action.getCol());
+        inverse.setPositive(!action.isPositive());
+        return inverse;
+    }
+
+    private PlayerAction randomMove() {
+        final int size = getSquare().getMatrix().length;
+        final PlayerAction action = new PlayerAction();
+        action.setRow(random.nextInt(size));
+        action.setCol(random.nextInt(size));
+        action.setPositive(random.nextBoolean());
+        return action;
+    }
+}
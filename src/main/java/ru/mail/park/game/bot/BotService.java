@@ -0,0 +1,150 @@
+package ru.mail.park.game.bot;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.game.mechanics.GameSession;
+import ru.mail.park.game.messaging.PlayerAction;
+import ru.mail.park.game.solver.Solver;
+
+import javax.annotation.PreDestroy;
+import java.util.SplittableRandom;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Bots for players who wait too long for a human opponent.
+ * Bot moves run on their own {@code game.bot-threads} threads, bots search for solutions on a solver pool
+ * of the same size, and at most {@code game.bot-max-games} bot games are played at once,
+ * so bots never take threads or capacity from games between humans.
+ */
+@Service
+public class BotService {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private Solver solver;
+    private final AtomicInteger games = new AtomicInteger();
+    private final AtomicInteger threads = new AtomicInteger();
+    private ScheduledExecutorService executor;
+
+    /**
+     * Started once the context is refreshed: the settings are static and may not be bound yet
+     * when this service is created.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public synchronized void start() {
+        if (executor != null || GameSettings.getBotMaxGames() <= 0) {
+            return;
+        }
+        solver = new Solver(GameSettings.getBotThreads());
+        executor = new ScheduledThreadPoolExecutor(GameSettings.getBotThreads(), runnable -> {
+            final Thread thread = new Thread(runnable, "bot-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            solver.shutdown();
+        }
+    }
+
+    public int getActiveGames() {
+        return games.get();
+    }
+
+    /**
+     * Runs the match attempt once a player has waited {@code game.bot-wait-ms}, if bots are enabled.
+     */
+    public void scheduleMatch(Runnable match) {
+        final ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.schedule(match, GameSettings.getBotWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignore) {
+            logger.debug("bots are stopped");
+        }
+    }
+
+    /**
+     * @return a bot holding one of the bot game slots, or null if bots are disabled or all slots are taken
+     */
+    @Nullable
+    public BotPlayer tryCreateBot() {
+        if (executor == null) {
+            return null;
+        }
+        int current;
+        do {
+            current = games.get();
+            if (current >= GameSettings.getBotMaxGames()) {
+                return null;
+            }
+        } while (!games.compareAndSet(current, current + 1));
+        return new BotPlayer(solver, GameSettings.getBotSkill(), new SplittableRandom());
+    }
+
+    /**
+     * Frees the slot of a bot that never got to play.
+     */
+    public void release(BotPlayer bot) {
+        games.decrementAndGet();
+    }
+
+    /**
+     * Makes the bot's moves until the session is over, then frees its slot.
+     *
+     * @param actions applies a bot move to the session
+     */
+    public void play(GameSession session, BotPlayer bot, Consumer<PlayerAction> actions) {
+        new BotGame(session, bot, actions).scheduleNextMove();
+    }
+
+    private final class BotGame implements Runnable {
+        private final GameSession session;
+        private final BotPlayer bot;
+        private final Consumer<PlayerAction> actions;
+
+        private BotGame(GameSession session, BotPlayer bot, Consumer<PlayerAction> actions) {
+            this.session = session;
+            this.bot = bot;
+            this.actions = actions;
+        }
+
+        @Override
+        public void run() {
+            if (session.isOver()) {
+                games.decrementAndGet();
+                return;
+            }
+            try {
+                actions.accept(bot.nextMove(session.getTarget()));
+            } catch (RuntimeException e) {
+                logger.error("bot move failed", e);
+            }
+            scheduleNextMove();
+        }
+
+        private void scheduleNextMove() {
+            final long interval = GameSettings.getBotMoveIntervalMs();
+            final long delay = interval * 3 / 4 + (long) (bot.getRandom().nextDouble() * interval / 2);
+            try {
+                executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ignore) {
+                games.decrementAndGet();
+            }
+        }
+    }
+}
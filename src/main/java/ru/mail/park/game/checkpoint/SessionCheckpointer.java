@@ -0,0 +1,246 @@
+package ru.mail.park.game.checkpoint;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.mail.park.game.GameMechService;
+import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.game.mechanics.GameSession;
+import ru.mail.park.game.mechanics.Player;
+import ru.mail.park.game.mechanics.Square;
+import ru.mail.park.model.UserProfile;
+import ru.mail.park.services.AccountService;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves live game sessions to {@code game.checkpoint-dir} every {@code game.checkpoint-interval-ms} and
+ * on shutdown, and puts them back into play on startup.
+ * Checkpoints are taken on their own thread. Only sessions that changed since the last checkpoint are
+ * encoded again, each under its own lock for as long as it takes to copy three squares.
+ * A checkpoint is written next to the previous one and then moved over it, so a crash leaves one or the other.
+ * Games against bots are not saved.
+ * <p>
+ * Layout, big-endian: magic, version, square size, min value, session count, then for every session
+ * its id, both logins and the target and both players' squares, each packed into four longs.
+ */
+@Service
+public class SessionCheckpointer {
+    static final int MAGIC = 0x50534350;
+    static final int VERSION = 1;
+    private static final int MAX_CELLS = 64;
+    private static final String FILE_NAME = "sessions.checkpoint";
+    private static final String TEMP_FILE_NAME = "sessions.checkpoint.tmp";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final GameMechService gameMechService;
+    private final AccountService accountService;
+    private final Map<Long, Encoded> encoded = new HashMap<>();
+    private Path directory;
+    private ScheduledExecutorService executor;
+
+    @Autowired
+    public SessionCheckpointer(GameMechService gameMechService, AccountService accountService) {
+        this.gameMechService = gameMechService;
+        this.accountService = accountService;
+    }
+
+    /**
+     * Started once the context is refreshed: the settings are static and may not be bound yet
+     * when this service is created.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public synchronized void start() {
+        final String path = GameSettings.getCheckpointDir();
+        if (executor != null || path == null || path.isEmpty()) {
+            return;
+        }
+        if (GameSettings.getSquareSize() * GameSettings.getSquareSize() > MAX_CELLS) {
+            logger.warn("squares of size {} don't fit checkpoints, not checkpointing sessions",
+                    GameSettings.getSquareSize());
+            return;
+        }
+        directory = Paths.get(path);
+        try {
+            Files.createDirectories(directory);
+            final int restored = restore(directory.resolve(FILE_NAME));
+            if (restored > 0) {
+                logger.info("restored {} game sessions, waiting for players to reconnect", restored);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("failed to restore game sessions from {}", path, e);
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long interval = GameSettings.getCheckpointIntervalMs();
+        executor.scheduleWithFixedDelay(this::checkpointQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Takes a last checkpoint, so a deploy keeps the games played until the very end.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkpointQuietly();
+    }
+
+    /**
+     * Writes the live sessions into the directory.
+     *
+     * @return number of sessions written
+     */
+    public synchronized int checkpoint(Path checkpointDirectory) throws IOException {
+        final Map<Long, Encoded> current = new HashMap<>();
+        for (GameSession session : gameMechService.getSessions()) {
+            if (session.isOver() || session.getFirst().isBot() || session.getSecond().isBot()) {
+                continue;
+            }
+            Encoded record = encoded.get(session.getId());
+            if (record == null || record.version != session.getVersion()) {
+                record = encode(session);
+            }
+            current.put(session.getId(), record);
+        }
+        encoded.clear();
+        encoded.putAll(current);
+        final Path temp = checkpointDirectory.resolve(TEMP_FILE_NAME);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(GameSettings.getSquareSize());
+            out.writeInt(GameSettings.getSquareMinValue());
+            out.writeInt(current.size());
+            for (Encoded record : current.values()) {
+                out.write(record.bytes);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, checkpointDirectory.resolve(FILE_NAME), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return current.size();
+    }
+
+    /**
+     * Puts the sessions of a checkpoint back into play, skipping the ones of users that no longer exist.
+     *
+     * @return number of sessions restored
+     */
+    public int restore(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        int restored = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("not a session checkpoint: " + file);
+            }
+            final int size = in.readInt();
+            final int minValue = in.readInt();
+            if (size != GameSettings.getSquareSize() || minValue != GameSettings.getSquareMinValue()) {
+                logger.warn("checkpoint {} was taken with other square settings, not restoring it", file);
+                return 0;
+            }
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final long id = in.readLong();
+                final UserProfile first = accountService.getUserByLogin(in.readUTF());
+                final UserProfile second = accountService.getUserByLogin(in.readUTF());
+                final Square target = readSquare(in);
+                final Square firstSquare = readSquare(in);
+                final Square secondSquare = readSquare(in);
+                if (first != null && second != null) {
+                    gameMechService.restore(new GameSession(id, new Player(first, firstSquare),
+                            new Player(second, secondSquare), target));
+                    restored++;
+                }
+            }
+        }
+        return restored;
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint(directory);
+        } catch (IOException | RuntimeException e) {
+            logger.error("failed to checkpoint game sessions", e);
+        }
+    }
+
+    @SuppressWarnings("SynchronizationOnLocalVariableOrMethodParameter")
+    private static Encoded encode(GameSession session) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        final int version;
+        synchronized (session) {
+            version = session.getVersion();
+            out.writeLong(session.getId());
+            out.writeUTF(session.getFirst().getUser().getLogin());
+            out.writeUTF(session.getSecond().getUser().getLogin());
+            writeSquare(out, session.getTarget());
+            writeSquare(out, session.getFirst().getSquare());
+            writeSquare(out, session.getSecond().getSquare());
+        }
+        return new Encoded(version, bytes.toByteArray());
+    }
+
+    private static void writeSquare(DataOutputStream out, Square square) throws IOException {
+        for (int word = 0; word < 4; word++) {
+            out.writeLong(square.getPackedWord(word));
+        }
+    }
+
+    private static Square readSquare(DataInputStream in) throws IOException {
+        final long[] words = new long[4];
+        for (int word = 0; word < words.length; word++) {
+            words[word] = in.readLong();
+        }
+        return Square.unpack(words);
+    }
+
+    private static final class Encoded {
+        private final int version;
+        private final byte[] bytes;
+
+        private Encoded(int version, byte[] bytes) {
+            this.version = version;
+            this.bytes = bytes;
+        }
+    }
+}
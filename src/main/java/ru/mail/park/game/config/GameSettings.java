@@ -1,7 +1,9 @@
 package ru.mail.park.game.config;
 
+import org.jetbrains.annotations.Nullable;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import ru.mail.park.websocket.RateLimitPolicy;
 
 @ConfigurationProperties(prefix = "game")
 @Component
@@ -11,6 +13,25 @@ public class GameSettings {
     private static int squareMaxValue;
     private static int targetScramble;
     private static int rankBounty;
+    private static int targetPoolSize;
+    private static Long randomSeed;
+    private static int solverMaxDepth;
+    private static long solverMaxNodes;
+    private static String cataloguePath;
+    private static int targetDifficulty;
+    private static int botMaxGames;
+    private static int botThreads;
+    private static long botWaitMs;
+    private static long botMoveIntervalMs;
+    private static double botSkill;
+    private static String journalDir;
+    private static long journalSegmentBytes;
+    private static String checkpointDir;
+    private static long checkpointIntervalMs;
+    private static long reconnectGraceMs;
+    private static double actionRate;
+    private static int actionBurst;
+    private static RateLimitPolicy actionLimitPolicy;
 
     public static int getSquareSize() {
         return squareSize;
@@ -51,4 +72,187 @@ public class GameSettings {
     public void setRankBounty(int rankBounty) {
         GameSettings.rankBounty = rankBounty;
     }
+
+    public static int getTargetPoolSize() {
+        return targetPoolSize;
+    }
+
+    public void setTargetPoolSize(int targetPoolSize) {
+        GameSettings.targetPoolSize = targetPoolSize;
+    }
+
+    /**
+     * @return seed for reproducible targets, null for random ones
+     */
+    @Nullable
+    public static Long getRandomSeed() {
+        return randomSeed;
+    }
+
+    public void setRandomSeed(Long randomSeed) {
+        GameSettings.randomSeed = randomSeed;
+    }
+
+    public static int getSolverMaxDepth() {
+        return solverMaxDepth;
+    }
+
+    public void setSolverMaxDepth(int solverMaxDepth) {
+        GameSettings.solverMaxDepth = solverMaxDepth;
+    }
+
+    public static long getSolverMaxNodes() {
+        return solverMaxNodes;
+    }
+
+    public void setSolverMaxNodes(long solverMaxNodes) {
+        GameSettings.solverMaxNodes = solverMaxNodes;
+    }
+
+    /**
+     * @return target catalogue file, empty to scramble targets instead
+     */
+    public static String getCataloguePath() {
+        return cataloguePath;
+    }
+
+    public void setCataloguePath(String cataloguePath) {
+        GameSettings.cataloguePath = cataloguePath;
+    }
+
+    public static int getTargetDifficulty() {
+        return targetDifficulty;
+    }
+
+    public void setTargetDifficulty(int targetDifficulty) {
+        GameSettings.targetDifficulty = targetDifficulty;
+    }
+
+    /**
+     * @return bot games played at once, 0 to never match players with bots
+     */
+    public static int getBotMaxGames() {
+        return botMaxGames;
+    }
+
+    public void setBotMaxGames(int botMaxGames) {
+        GameSettings.botMaxGames = botMaxGames;
+    }
+
+    public static int getBotThreads() {
+        return botThreads;
+    }
+
+    public void setBotThreads(int botThreads) {
+        GameSettings.botThreads = botThreads;
+    }
+
+    /**
+     * @return how long a player waits for a human opponent before getting a bot
+     */
+    public static long getBotWaitMs() {
+        return botWaitMs;
+    }
+
+    public void setBotWaitMs(long botWaitMs) {
+        GameSettings.botWaitMs = botWaitMs;
+    }
+
+    public static long getBotMoveIntervalMs() {
+        return botMoveIntervalMs;
+    }
+
+    public void setBotMoveIntervalMs(long botMoveIntervalMs) {
+        GameSettings.botMoveIntervalMs = botMoveIntervalMs;
+    }
+
+    /**
+     * @return share of bot moves that follow a shortest solution, the rest are random
+     */
+    public static double getBotSkill() {
+        return botSkill;
+    }
+
+    public void setBotSkill(double botSkill) {
+        GameSettings.botSkill = botSkill;
+    }
+
+    /**
+     * @return directory of the move journal, empty to not journal games
+     */
+    public static String getJournalDir() {
+        return journalDir;
+    }
+
+    public void setJournalDir(String journalDir) {
+        GameSettings.journalDir = journalDir;
+    }
+
+    public static long getJournalSegmentBytes() {
+        return journalSegmentBytes;
+    }
+
+    public void setJournalSegmentBytes(long journalSegmentBytes) {
+        GameSettings.journalSegmentBytes = journalSegmentBytes;
+    }
+
+    /**
+     * @return directory of session checkpoints, empty to not checkpoint sessions
+     */
+    public static String getCheckpointDir() {
+        return checkpointDir;
+    }
+
+    public void setCheckpointDir(String checkpointDir) {
+        GameSettings.checkpointDir = checkpointDir;
+    }
+
+    public static long getCheckpointIntervalMs() {
+        return checkpointIntervalMs;
+    }
+
+    public void setCheckpointIntervalMs(long checkpointIntervalMs) {
+        GameSettings.checkpointIntervalMs = checkpointIntervalMs;
+    }
+
+    /**
+     * @return how long a game waits for a player to connect again before the player loses
+     */
+    public static long getReconnectGraceMs() {
+        return reconnectGraceMs;
+    }
+
+    public void setReconnectGraceMs(long reconnectGraceMs) {
+        GameSettings.reconnectGraceMs = reconnectGraceMs;
+    }
+
+    /**
+     * @return messages a client may send per second on average, no limit if not positive
+     */
+    public static double getActionRate() {
+        return actionRate;
+    }
+
+    public void setActionRate(double actionRate) {
+        GameSettings.actionRate = actionRate;
+    }
+
+    /**
+     * @return messages a client may send at once after being quiet
+     */
+    public static int getActionBurst() {
+        return actionBurst;
+    }
+
+    public void setActionBurst(int actionBurst) {
+        GameSettings.actionBurst = actionBurst;
+    }
+
+    public static RateLimitPolicy getActionLimitPolicy() {
+        return actionLimitPolicy;
+    }
+
+    public void setActionLimitPolicy(RateLimitPolicy actionLimitPolicy) {
+        GameSettings.actionLimitPolicy = actionLimitPolicy;
+    }
 }
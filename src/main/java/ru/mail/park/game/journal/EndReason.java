@@ -0,0 +1,19 @@
+package ru.mail.park.game.journal;
+
+/**
+ * Why a game ended, kept in its {@link MoveJournal} end record.
+ */
+public enum EndReason {
+    /**
+     * A player's square matched the target.
+     */
+    WON,
+    /**
+     * A player left and did not reconnect in time, so the opponent was awarded the game.
+     */
+    FORFEITED,
+    /**
+     * The game ended without a winner.
+     */
+    CALLED_OFF
+}
@@ -0,0 +1,169 @@
+package ru.mail.park.game.journal;
+
+import org.jetbrains.annotations.Nullable;
+import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.game.mechanics.GameSession;
+import ru.mail.park.game.mechanics.Player;
+import ru.mail.park.game.mechanics.Square;
+import ru.mail.park.game.messaging.PlayerAction;
+import ru.mail.park.model.UserProfile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Rebuilds games from the segments of a {@link MoveJournal}.
+ * Games are replayed with the same rules as on the server, so the result only depends on the journal.
+ * Square settings are taken from application.properties on the classpath.
+ * <p>
+ * Usage: {@code mvn compile exec:java -Dexec.mainClass=ru.mail.park.game.journal.JournalReplay
+ * -Dexec.args="<journal dir> [session id]"}
+ */
+public final class JournalReplay {
+    private JournalReplay() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: JournalReplay <journal dir> [session id]");
+            System.exit(1);
+        }
+        loadSettings();
+        final Map<Long, ReplayedGame> games = replay(Paths.get(args[0]));
+        for (Map.Entry<Long, ReplayedGame> entry : games.entrySet()) {
+            if (args.length < 2 || entry.getKey() == Long.parseLong(args[1])) {
+                System.out.println(describe(entry.getKey(), entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * @return games by session id in the order they started; games whose start is not in the journal are skipped
+     */
+    public static Map<Long, ReplayedGame> replay(Path directory) throws IOException {
+        final Map<Long, ReplayedGame> games = new LinkedHashMap<>();
+        for (Path segment : segments(directory)) {
+            try (FileChannel channel = FileChannel.open(segment)) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                for (int position = 0; position <= buffer.capacity() - MoveJournal.RECORD_BYTES;
+                     position += MoveJournal.RECORD_BYTES) {
+                    apply(games, buffer, position);
+                }
+            }
+        }
+        return games;
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        final List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "moves-*.journal")) {
+            stream.forEach(segments::add);
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private static void apply(Map<Long, ReplayedGame> games, MappedByteBuffer buffer, int position)
+            throws IOException {
+        final long sessionId = buffer.getLong(position + MoveJournal.SESSION_ID);
+        final long time = buffer.getLong(position + MoveJournal.TIME);
+        final byte type = buffer.get(position + MoveJournal.TYPE);
+        if (type == MoveJournal.STARTED) {
+            games.put(sessionId, new ReplayedGame(new GameSession(
+                    new Player(user(buffer.getInt(position + MoveJournal.FIRST_ID))),
+                    new Player(user(buffer.getInt(position + MoveJournal.SECOND_ID))),
+                    square(buffer, position)), time));
+            return;
+        }
+        final ReplayedGame game = games.get(sessionId);
+        if (game == null) {
+            return;
+        }
+        final byte player = buffer.get(position + MoveJournal.PLAYER);
+        final GameSession session = game.getSession();
+        final Player mover = player == MoveJournal.NO_PLAYER ? null
+                : player == 0 ? session.getFirst() : session.getSecond();
+        if (type == MoveJournal.MOVED && mover != null) {
+            final PlayerAction action = new PlayerAction();
+            action.setRow(buffer.get(position + MoveJournal.ROW));
+            action.setCol(buffer.get(position + MoveJournal.COL));
+            action.setPositive(buffer.get(position + MoveJournal.POSITIVE) != 0);
+            session.processAction(mover, action);
+            game.moved();
+        } else if (type == MoveJournal.RESTORED && mover != null) {
+            game.restored(mover, square(buffer, position));
+        } else if (type == MoveJournal.ENDED) {
+            game.ended(time, mover, reason(buffer.get(position + MoveJournal.REASON), mover));
+        }
+    }
+
+    /**
+     * Journals written before end reasons were recorded only tell a win from a called off game.
+     */
+    private static EndReason reason(byte code, @Nullable Player winner) {
+        if (code > 0 && code <= EndReason.values().length) {
+            return EndReason.values()[code - 1];
+        }
+        return winner == null ? EndReason.CALLED_OFF : EndReason.WON;
+    }
+
+    /**
+     * @return the target of a start record or the player's square of a restore record
+     */
+    private static Square square(MappedByteBuffer buffer, int position) throws IOException {
+        final int size = buffer.get(position + MoveJournal.SIZE);
+        final int minValue = buffer.get(position + MoveJournal.MIN_VALUE);
+        if (size != GameSettings.getSquareSize() || minValue != GameSettings.getSquareMinValue()) {
+            throw new IOException("journal was written for squares of size " + size + " from " + minValue);
+        }
+        final long[] words = new long[4];
+        for (int word = 0; word < words.length; word++) {
+            words[word] = buffer.getLong(position + MoveJournal.TARGET + word * Long.BYTES);
+        }
+        return Square.unpack(words);
+    }
+
+    private static UserProfile user(int id) {
+        return new UserProfile(id, "user-" + id, "", "", 0);
+    }
+
+    private static String describe(long sessionId, ReplayedGame game) {
+        final GameSession session = game.getSession();
+        final String result;
+        if (!game.isEnded()) {
+            result = "not ended";
+        } else if (game.getEndReason() == EndReason.CALLED_OFF || game.getRecordedWinner() == null) {
+            result = "called off";
+        } else if (game.getEndReason() == EndReason.FORFEITED) {
+            result = "forfeited to " + game.getRecordedWinner().getUser().getId();
+        } else {
+            result = "won by " + game.getRecordedWinner().getUser().getId();
+        }
+        return "session " + sessionId + ": " + session.getFirst().getUser().getId() + " vs "
+                + session.getSecond().getUser().getId() + ", " + game.getMoves() + " moves in "
+                + (game.isEnded() ? game.getEndedAt() - game.getStartedAt() + " ms" : "progress") + ", " + result
+                + (game.isRestored() ? ", restored" : "") + (game.isConsistent() ? "" : ", REPLAY DIFFERS");
+    }
+
+    private static void loadSettings() throws IOException {
+        final Properties properties = new Properties();
+        try (InputStream in = JournalReplay.class.getResourceAsStream("/application.properties")) {
+            properties.load(in);
+        }
+        final GameSettings settings = new GameSettings();
+        settings.setSquareSize(Integer.parseInt(properties.getProperty("game.square-size")));
+        settings.setSquareMinValue(Integer.parseInt(properties.getProperty("game.square-min-value")));
+        settings.setSquareMaxValue(Integer.parseInt(properties.getProperty("game.square-max-value")));
+    }
+}
@@ -0,0 +1,225 @@
+package ru.mail.park.game.journal;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.game.mechanics.GameSession;
+import ru.mail.park.game.mechanics.Player;
+import ru.mail.park.game.mechanics.Square;
+import ru.mail.park.game.messaging.PlayerAction;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Append-only record of every game: its players and target, each move and the result.
+ * Records are written into memory-mapped segment files of {@code game.journal-segment-bytes} in
+ * {@code game.journal-dir}, and a full segment is replaced by a new file.
+ * Writers claim a record with one atomic add and fill it in place, so journaling a move allocates nothing
+ * and never waits for the disk. Records survive a crash of the server but not necessarily of the machine.
+ * <p>
+ * Every record is {@link #RECORD_BYTES} bytes, big-endian: session id, time in ms, record type, player index,
+ * row, column, whether the move is positive, square size, min value, the {@link EndReason} of an end record
+ * as its ordinal plus one, the ids of both players and the target packed four bits per cell into four longs.
+ * A restored game gets a restore record per player, holding the player's square in place of the target.
+ * Fields a record type has no use for are zero.
+ * The type is written last, so a record with type zero was never completed.
+ */
+@Service
+public class MoveJournal {
+    static final int RECORD_BYTES = 64;
+    static final byte STARTED = 1;
+    static final byte MOVED = 2;
+    static final byte ENDED = 3;
+    static final byte RESTORED = 4;
+    static final byte NO_PLAYER = -1;
+    static final int SESSION_ID = 0;
+    static final int TIME = 8;
+    static final int TYPE = 16;
+    static final int PLAYER = 17;
+    static final int ROW = 18;
+    static final int COL = 19;
+    static final int POSITIVE = 20;
+    static final int SIZE = 21;
+    static final int MIN_VALUE = 22;
+    static final int REASON = 23;
+    static final int FIRST_ID = 24;
+    static final int SECOND_ID = 28;
+    static final int TARGET = 32;
+    static final int MAX_CELLS = 64;
+    private static final String SEGMENT_NAME = "moves-%013d-%06d.journal";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private volatile Segment segment;
+    private Path directory;
+    private int segmentBytes;
+    private long openedAt;
+    private int segmentCount;
+
+    /**
+     * Started once the context is refreshed: the settings are static and may not be bound yet
+     * when this service is created. Started before sessions are restored from a checkpoint,
+     * so that their restore records are kept.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ContextRefreshedEvent.class)
+    public synchronized void start() {
+        final String path = GameSettings.getJournalDir();
+        if (segment != null || path == null || path.isEmpty()) {
+            return;
+        }
+        if (GameSettings.getSquareSize() * GameSettings.getSquareSize() > MAX_CELLS) {
+            logger.warn("squares of size {} don't fit journal records, not journaling games",
+                    GameSettings.getSquareSize());
+            return;
+        }
+        try {
+            open(Paths.get(path), GameSettings.getJournalSegmentBytes());
+        } catch (IOException e) {
+            logger.error("failed to open move journal in {}, not journaling games", path, e);
+        }
+    }
+
+    /**
+     * Starts writing segments into the directory, creating it if needed.
+     */
+    public synchronized void open(Path journalDirectory, long bytesPerSegment) throws IOException {
+        if (bytesPerSegment < RECORD_BYTES || bytesPerSegment > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("journal segments must hold from one record to 2 GB");
+        }
+        Files.createDirectories(journalDirectory);
+        directory = journalDirectory;
+        segmentBytes = (int) (bytesPerSegment / RECORD_BYTES * RECORD_BYTES);
+        openedAt = System.currentTimeMillis();
+        segmentCount = 0;
+        segment = newSegment();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        final Segment current = segment;
+        segment = null;
+        if (current != null) {
+            current.buffer.force();
+        }
+    }
+
+    public void started(GameSession session) {
+        append(session, STARTED, session.getFirst(), null, null, session.getTarget());
+    }
+
+    public void moved(GameSession session, Player player, PlayerAction action) {
+        append(session, MOVED, player, action, null, null);
+    }
+
+    /**
+     * @param winner null if the game was called off
+     */
+    public void ended(GameSession session, @Nullable Player winner, EndReason reason) {
+        append(session, ENDED, winner, null, reason, null);
+    }
+
+    /**
+     * Records the squares a game restored from a checkpoint goes on from. Moves journaled after the checkpoint
+     * were lost with the server, so its later moves only replay on top of these squares.
+     */
+    public void restored(GameSession session) {
+        append(session, RESTORED, session.getFirst(), null, null, session.getFirst().getSquare());
+        append(session, RESTORED, session.getSecond(), null, null, session.getSecond().getSquare());
+    }
+
+    /**
+     * @param square the target of a start record or the player's square of a restore record
+     */
+    private void append(GameSession session, byte type, @Nullable Player player, @Nullable PlayerAction action,
+                        @Nullable EndReason reason, @Nullable Square square) {
+        Segment current = segment;
+        while (current != null) {
+            final int position = current.claim();
+            if (position >= 0) {
+                write(current.buffer, position, session, type, player, action, reason, square);
+                return;
+            }
+            current = rotate(current);
+        }
+    }
+
+    @SuppressWarnings({"NumericCastThatLosesPrecision", "MethodWithTooManyParameters"})
+    private static void write(MappedByteBuffer buffer, int position, GameSession session, byte type,
+                              @Nullable Player player, @Nullable PlayerAction action, @Nullable EndReason reason,
+                              @Nullable Square square) {
+        buffer.putLong(position + SESSION_ID, session.getId());
+        buffer.putLong(position + TIME, System.currentTimeMillis());
+        buffer.put(position + PLAYER, player == null ? NO_PLAYER : session.getFirst() == player ? 0 : (byte) 1);
+        if (action != null) {
+            buffer.put(position + ROW, (byte) action.getRow());
+            buffer.put(position + COL, (byte) action.getCol());
+            buffer.put(position + POSITIVE, action.isPositive() ? (byte) 1 : 0);
+        }
+        if (reason != null) {
+            buffer.put(position + REASON, (byte) (reason.ordinal() + 1));
+        }
+        if (square != null) {
+            buffer.put(position + SIZE, (byte) GameSettings.getSquareSize());
+            buffer.put(position + MIN_VALUE, (byte) GameSettings.getSquareMinValue());
+            buffer.putInt(position + FIRST_ID, session.getFirst().getUser().getId());
+            buffer.putInt(position + SECOND_ID, session.getSecond().getUser().getId());
+            for (int word = 0; word < 4; word++) {
+                buffer.putLong(position + TARGET + word * Long.BYTES, square.getPackedWord(word));
+            }
+        }
+        buffer.put(position + TYPE, type);
+    }
+
+    @Nullable
+    private synchronized Segment rotate(Segment full) {
+        if (segment != full) {
+            return segment;
+        }
+        try {
+            segment = newSegment();
+        } catch (IOException e) {
+            logger.error("failed to start a new journal segment, not journaling games", e);
+            segment = null;
+        }
+        return segment;
+    }
+
+    private Segment newSegment() throws IOException {
+        final Path path = directory.resolve(String.format(SEGMENT_NAME, openedAt, segmentCount++));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return new Segment(channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+        }
+    }
+
+    private static final class Segment {
+        private final MappedByteBuffer buffer;
+        private final AtomicInteger next = new AtomicInteger();
+
+        private Segment(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * @return position of a free record, or -1 if the segment is full
+         */
+        private int claim() {
+            final int position = next.getAndAdd(RECORD_BYTES);
+            return position >= 0 && position <= buffer.capacity() - RECORD_BYTES ? position : -1;
+        }
+    }
+}
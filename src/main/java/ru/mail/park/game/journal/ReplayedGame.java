@@ -0,0 +1,113 @@
+package ru.mail.park.game.journal;
+
+import org.jetbrains.annotations.Nullable;
+import ru.mail.park.game.mechanics.GameSession;
+import ru.mail.park.game.mechanics.Player;
+import ru.mail.park.game.mechanics.Square;
+
+/**
+ * A game rebuilt from the {@link MoveJournal} by applying its moves to its target in order.
+ */
+public class ReplayedGame {
+    private GameSession session;
+    private final long startedAt;
+    private long endedAt;
+    private int moves;
+    private boolean ended;
+    private Player recordedWinner;
+    private EndReason endReason;
+    private boolean restored;
+
+    ReplayedGame(GameSession session, long startedAt) {
+        this.session = session;
+        this.startedAt = startedAt;
+    }
+
+    /**
+     * @return the session as it was when the game ended, with the players' final squares
+     */
+    public GameSession getSession() {
+        return session;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getEndedAt() {
+        return endedAt;
+    }
+
+    public int getMoves() {
+        return moves;
+    }
+
+    /**
+     * @return whether the game was restored from a checkpoint after the server went down
+     */
+    public boolean isRestored() {
+        return restored;
+    }
+
+    public boolean isEnded() {
+        return ended;
+    }
+
+    @Nullable
+    public Player getRecordedWinner() {
+        return recordedWinner;
+    }
+
+    /**
+     * @return why the game ended, or null if it has not
+     */
+    @Nullable
+    public EndReason getEndReason() {
+        return endReason;
+    }
+
+    /**
+     * @return the player whose square matches the target after the replayed moves, if any
+     */
+    @Nullable
+    public Player getReplayedWinner() {
+        if (session.isWinner(session.getFirst())) {
+            return session.getFirst();
+        }
+        return session.isWinner(session.getSecond()) ? session.getSecond() : null;
+    }
+
+    /**
+     * Games that were not won by a move, such as forfeits, must end with no square on the target.
+     *
+     * @return whether replaying the moves gives the result the server declared
+     */
+    public boolean isConsistent() {
+        if (!ended) {
+            return true;
+        }
+        return getReplayedWinner() == (endReason == EndReason.WON ? recordedWinner : null);
+    }
+
+    void moved() {
+        moves++;
+    }
+
+    /**
+     * Replaces the square of the player with the one the game was restored with.
+     */
+    void restored(Player player, Square square) {
+        restored = true;
+        final Player first = session.getFirst() == player ? new Player(player.getUser(), square) : session.getFirst();
+        final Player second = session.getSecond() == player
+                ? new Player(player.getUser(), square) : session.getSecond();
+        session = new GameSession(session.getId(), first, second, session.getTarget());
+    }
+
+    void ended(long time, @Nullable Player winner, EndReason reason) {
+        ended = true;
+        endedAt = time;
+        recordedWinner = winner;
+        endReason = reason;
+    }
+}
@@ -3,17 +3,47 @@ package ru.mail.park.game.mechanics;
 import ru.mail.park.game.config.GameSettings;
 import ru.mail.park.game.messaging.PlayerAction;
 import ru.mail.park.model.UserProfile;
+import ru.mail.park.websocket.Connection;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class GameSession {
     private static final int TARGET_SCRAMBLE = GameSettings.getTargetScramble();
+    /**
+     * Starts from the time in microseconds, so ids stay unique across restarts
+     * unless sessions start faster than one per microsecond.
+     */
+    private static final AtomicLong IDS = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final long id;
     private Player first;
     private Player second;
     private Square target;
+    private volatile boolean over;
+    private volatile int version;
+    private final Set<Connection> spectators = ConcurrentHashMap.newKeySet();
 
     public GameSession(Player first, Player second) {
+        this(first, second, new Square(TARGET_SCRAMBLE));
+    }
+
+    public GameSession(Player first, Player second, Square target) {
+        this(IDS.incrementAndGet(), first, second, target);
+    }
+
+    /**
+     * @param id of a session restored from a checkpoint
+     */
+    public GameSession(long id, Player first, Player second, Square target) {
+        this.id = id;
         this.first = first;
         this.second = second;
-        target = new Square(TARGET_SCRAMBLE);
+        this.target = target;
+    }
+
+    public long getId() {
+        return id;
     }
 
     public Player getFirst() {
@@ -28,11 +58,33 @@ public class GameSession {
         return target;
     }
 
+    /**
+     * @return connections watching the game, who get every snap from the first player's side
+     */
+    public Set<Connection> getSpectators() {
+        return spectators;
+    }
+
+    /**
+     * @return number of moves made so far, to tell whether the session changed
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public boolean isOver() {
+        return over;
+    }
+
+    public void finish() {
+        over = true;
+    }
+
     public Player getPlayer(UserProfile userProfile) {
-        if (first.getUser().equals(userProfile)) {
+        if (first.getUser().getId() == userProfile.getId()) {
             return first;
         }
-        if (second.getUser().equals(userProfile)) {
+        if (second.getUser().getId() == userProfile.getId()) {
             return second;
         }
         return null;
@@ -48,7 +100,9 @@ public class GameSession {
         return null;
     }
 
+    @SuppressWarnings("NonAtomicOperationOnVolatileField")
     public void processAction(Player player, PlayerAction action) {
+        version++;
         if (action.isPositive()) {
             player.getSquare().activate(action.getRow(), action.getCol(), 2, 1);
         } else {
@@ -1,13 +1,22 @@
 package ru.mail.park.game.mechanics;
 
+import org.jetbrains.annotations.Nullable;
 import ru.mail.park.model.UserProfile;
+import ru.mail.park.websocket.Connection;
 
 public class Player {
     private UserProfile user;
-    private Square square = new Square();
+    private Square square;
+    private volatile long awaySince;
+    private volatile Connection connection;
 
     public Player(UserProfile user) {
+        this(user, new Square());
+    }
+
+    public Player(UserProfile user, Square square) {
         this.user = user;
+        this.square = square;
     }
 
     public UserProfile getUser() {
@@ -17,4 +26,34 @@ public class Player {
     public Square getSquare() {
         return square;
     }
+
+    /**
+     * @return when the player lost their connection to the game, 0 while connected
+     */
+    public long getAwaySince() {
+        return awaySince;
+    }
+
+    public void setAwaySince(long awaySince) {
+        this.awaySince = awaySince;
+    }
+
+    /**
+     * @return the connection the player's snaps go to, null until the player joins the game on a connection
+     */
+    @Nullable
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public void setConnection(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * @return whether the server plays for this player, so there is no one to send snaps to or rank
+     */
+    public boolean isBot() {
+        return false;
+    }
 }
@@ -3,28 +3,70 @@ package ru.mail.park.game.mechanics;
 import ru.mail.park.game.config.GameSettings;
 
 import java.util.Arrays;
+import java.util.SplittableRandom;
 
 public class Square {
     private static final int SIZE = GameSettings.getSquareSize();
     private static final int MIN_VALUE = GameSettings.getSquareMinValue();
     private static final int MAX_VALUE = GameSettings.getSquareMaxValue();
+    private static final int CELLS_PER_WORD = 16;
+    private static final ThreadLocal<SplittableRandom> RANDOM = ThreadLocal.withInitial(SplittableRandom::new);
     private int[][] matrix;
 
     public Square() {
         initMatrix();
     }
 
+    /**
+     * @param matrix taken as is, not copied
+     */
+    public Square(int[][] matrix) {
+        this.matrix = matrix;
+    }
+
     public Square(int scramble) {
+        this(scramble, RANDOM.get());
+    }
+
+    /**
+     * @param random not shared between threads; the same seed gives the same square
+     */
+    public Square(int scramble, SplittableRandom random) {
         initMatrix();
         for (int i = 0; i < scramble; i++) {
-            activate((int) (Math.random() * SIZE), (int) (Math.random() * SIZE), 2, 1);
+            activate(random.nextInt(SIZE), random.nextInt(SIZE), 2, 1);
+        }
+    }
+
+    /**
+     * Rebuilds a square of the current size from {@link #getPackedWord} words.
+     */
+    public static Square unpack(long[] words) {
+        final int[][] matrix = new int[SIZE][SIZE];
+        for (int cell = 0; cell < SIZE * SIZE; cell++) {
+            matrix[cell / SIZE][cell % SIZE] = (int) (words[cell / CELLS_PER_WORD] >>> shift(cell) & 0xF) + MIN_VALUE;
         }
+        return new Square(matrix);
     }
 
     public int[][] getMatrix() {
         return matrix;
     }
 
+    /**
+     * Squares of up to 64 cells pack into four words, four bits per cell holding the value minus the min value.
+     *
+     * @return cells from {@code 16 * word} to {@code 16 * word + 15}
+     */
+    public long getPackedWord(int word) {
+        long packed = 0;
+        final int end = Math.min(SIZE * SIZE, (word + 1) * CELLS_PER_WORD);
+        for (int cell = word * CELLS_PER_WORD; cell < end; cell++) {
+            packed |= (long) (matrix[cell / SIZE][cell % SIZE] - MIN_VALUE) << shift(cell);
+        }
+        return packed;
+    }
+
     public void activate(int row, int col, int targetDiff, int adjacentDiff) {
         add(row, col, targetDiff);
         add(row - 1, col - 1, adjacentDiff);
@@ -37,6 +79,10 @@ public class Square {
         add(row + 1, col + 1, adjacentDiff);
     }
 
+    private static int shift(int cell) {
+        return cell % CELLS_PER_WORD * 4;
+    }
+
     private void initMatrix() {
         matrix = new int[SIZE][SIZE];
         for (int i = 0; i < SIZE; i++) {
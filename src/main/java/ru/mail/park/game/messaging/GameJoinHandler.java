@@ -3,7 +3,7 @@ package ru.mail.park.game.messaging;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import ru.mail.park.game.GameMechService;
-import ru.mail.park.model.UserProfile;
+import ru.mail.park.websocket.Connection;
 import ru.mail.park.websocket.HandleException;
 import ru.mail.park.websocket.MessageHandler;
 import ru.mail.park.websocket.MessageHandlerService;
@@ -28,7 +28,7 @@ public class GameJoinHandler extends MessageHandler<GameJoin> {
     }
 
     @Override
-    public void handle(GameJoin message, UserProfile userProfile) throws HandleException {
-        gameMechService.addPlayer(userProfile);
+    public void handle(GameJoin message, Connection connection) throws HandleException {
+        gameMechService.addPlayer(connection);
     }
 }
@@ -1,14 +1,18 @@
 package ru.mail.park.game.messaging;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import ru.mail.park.game.GameMechService;
-import ru.mail.park.model.UserProfile;
+import ru.mail.park.websocket.Connection;
 import ru.mail.park.websocket.HandleException;
 import ru.mail.park.websocket.MessageHandler;
 import ru.mail.park.websocket.MessageHandlerService;
 
 import javax.annotation.PostConstruct;
+import java.io.IOException;
 
 @Component
 public class PlayerActionHandler extends MessageHandler<PlayerAction> {
@@ -27,8 +31,41 @@ public class PlayerActionHandler extends MessageHandler<PlayerAction> {
         messageHandlerService.registerHandler(PlayerAction.class, this);
     }
 
+    /**
+     * Moves are by far the most frequent message, so they are read field by field
+     * into the connection's reusable action.
+     */
     @Override
-    public void handle(PlayerAction message, UserProfile userProfile) throws HandleException {
-        gameMechService.addPlayerAction(userProfile, message);
+    public PlayerAction read(JsonParser parser, Connection connection) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            throw new JsonMappingException(parser, "player action is not an object");
+        }
+        final PlayerAction action = connection.getInboundAction();
+        action.setRow(0);
+        action.setCol(0);
+        action.setPositive(false);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "row":
+                    action.setRow(parser.getValueAsInt());
+                    break;
+                case "col":
+                    action.setCol(parser.getValueAsInt());
+                    break;
+                case "positive":
+                    action.setPositive(parser.getValueAsBoolean());
+                    break;
+                default:
+                    throw new JsonMappingException(parser, "unknown player action field " + field);
+            }
+        }
+        return action;
+    }
+
+    @Override
+    public void handle(PlayerAction message, Connection connection) throws HandleException {
+        gameMechService.addPlayerAction(connection, message);
     }
 }
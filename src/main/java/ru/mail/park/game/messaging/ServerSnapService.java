@@ -2,21 +2,25 @@ package ru.mail.park.game.messaging;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.jetbrains.annotations.Nullable;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import ru.mail.park.game.mechanics.GameSession;
 import ru.mail.park.game.mechanics.Player;
-import ru.mail.park.model.UserProfile;
+import ru.mail.park.logging.EventLog;
+import ru.mail.park.monitoring.SnapEncodeEvent;
+import ru.mail.park.websocket.Connection;
 import ru.mail.park.websocket.Message;
 import ru.mail.park.websocket.RemotePointService;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
 
 @Service
 public class ServerSnapService {
-    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private static final EventLog SNAP_FAILED = new EventLog(ServerSnapService.class, "snap.failed", "login={}");
+    private static final EventLog SPECTATOR_SNAP_FAILED = new EventLog(ServerSnapService.class,
+            "snap.spectators-failed", "");
     private RemotePointService remotePointService;
     private ObjectMapper objectMapper = new ObjectMapper();
 
@@ -29,39 +33,90 @@ public class ServerSnapService {
         sendSnapsForSession(session, false, null);
     }
 
+    /**
+     * Resyncs one player, such as one who has just reconnected.
+     */
+    public void sendSnapForPlayer(GameSession session, Player player) throws IOException {
+        final Connection connection = player.getConnection();
+        if (connection != null) {
+            sendSnapForPlayer(connection, player, session, false, null);
+        }
+    }
+
     public void sendGameOverSnaps(GameSession session, Player winner) throws IOException {
-        sendSnapsForSession(session, true, winner.getUser().getLogin());
+        sendSnapsForSession(session, true, winner);
     }
 
     @SuppressWarnings("OverlyBroadThrowsClause")
-    private void sendSnapsForSession(GameSession session, boolean gameOver, @Nullable String winner) throws IOException {
+    private void sendSnapsForSession(GameSession session, boolean gameOver, @Nullable Player winner) throws IOException {
         IOException exception = null;
-        try {
-            sendSnapForUser(session.getFirst().getUser(), session, gameOver, winner);
-        } catch (IOException e) {
-            logger.error("failed to send server snap to user " + session.getFirst().getUser().getLogin(), e);
-            exception = e;
-        }
-        try {
-            sendSnapForUser(session.getSecond().getUser(), session, gameOver, winner);
-        } catch (IOException e) {
-            logger.error("failed to send server snap to user " + session.getSecond().getUser().getLogin(), e);
-            exception = e;
+        for (Player player : new Player[]{session.getFirst(), session.getSecond()}) {
+            final Connection connection = player.getConnection();
+            if (player.isBot() || connection == null) {
+                continue;
+            }
+            try {
+                sendSnapForPlayer(connection, player, session, gameOver, winner);
+            } catch (IOException e) {
+                SNAP_FAILED.error(player.getUser().getLogin(), e);
+                exception = e;
+            }
         }
+        sendSnapToSpectators(session, gameOver, winner);
         if (exception != null) {
             throw exception;
         }
     }
 
+    /**
+     * Sends the current state to a connection that has just started watching.
+     */
+    public void sendSnapForSpectator(GameSession session, Connection spectator) throws IOException {
+        final ServerSnap snap = createSnapForPlayer(session.getFirst(), session, false, null);
+        final Message message = new Message(ServerSnap.class.getSimpleName(), encode(snap, session, true));
+        remotePointService.broadcast(Collections.singleton(spectator), message, true);
+    }
+
+    /**
+     * Spectators all see the game from the first player's side, so their snap is encoded once for all of them.
+     */
+    private void sendSnapToSpectators(GameSession session, boolean gameOver, @Nullable Player winner) {
+        final Set<Connection> spectators = session.getSpectators();
+        if (spectators.isEmpty()) {
+            return;
+        }
+        try {
+            final ServerSnap snap = createSnapForPlayer(session.getFirst(), session, gameOver, winner);
+            final Message message = new Message(ServerSnap.class.getSimpleName(), encode(snap, session, true));
+            remotePointService.broadcast(spectators, message, !gameOver);
+        } catch (IOException e) {
+            SPECTATOR_SNAP_FAILED.error(e);
+        }
+    }
+
     @SuppressWarnings("OverlyBroadThrowsClause")
-    private void sendSnapForUser(UserProfile user, GameSession session, boolean gameOver, @Nullable String winner)
-            throws IOException {
-        final ServerSnap snap = createSnapForPlayer(session.getPlayer(user), session, gameOver, winner);
-        final Message message = new Message(ServerSnap.class.getSimpleName(), objectMapper.writeValueAsString(snap));
-        remotePointService.sendMessageToUser(user, message);
+    private void sendSnapForPlayer(Connection connection, Player player, GameSession session, boolean gameOver,
+                                   @Nullable Player winner) throws IOException {
+        final ServerSnap snap = createSnapForPlayer(player, session, gameOver, winner);
+        final Message message = new Message(ServerSnap.class.getSimpleName(), encode(snap, session, false));
+        remotePointService.send(connection, message, !gameOver);
+    }
+
+    private String encode(ServerSnap snap, GameSession session, boolean spectators) throws IOException {
+        final SnapEncodeEvent event = new SnapEncodeEvent();
+        event.begin();
+        final String encoded = objectMapper.writeValueAsString(snap);
+        if (event.shouldCommit()) {
+            event.sessionId = session.getId();
+            event.spectators = spectators;
+            event.length = encoded.length();
+            event.commit();
+        }
+        return encoded;
     }
 
-    private ServerSnap createSnapForPlayer(Player player, GameSession session, boolean gameOver, @Nullable String winner) {
+    private ServerSnap createSnapForPlayer(Player player, GameSession session, boolean gameOver,
+                                           @Nullable Player winner) {
         final ServerSnap snap = new ServerSnap();
         snap.setPlayer(player.getUser().getLogin());
         snap.setOpponent(session.getOpponent(player).getUser().getLogin());
@@ -70,7 +125,7 @@ public class ServerSnapService {
         snap.setTarget(session.getTarget().getMatrix());
         snap.setGameOver(gameOver);
         if (gameOver) {
-            snap.setWin(player.getUser().getLogin().equals(winner));
+            snap.setWin(player == winner);
         }
         return snap;
     }
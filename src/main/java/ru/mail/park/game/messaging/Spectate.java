@@ -0,0 +1,13 @@
+package ru.mail.park.game.messaging;
+
+public class Spectate {
+    private String login;
+
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+}
@@ -0,0 +1,43 @@
+package ru.mail.park.game.messaging;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.mail.park.game.GameMechService;
+import ru.mail.park.model.UserProfile;
+import ru.mail.park.services.AccountService;
+import ru.mail.park.websocket.Connection;
+import ru.mail.park.websocket.HandleException;
+import ru.mail.park.websocket.MessageHandler;
+import ru.mail.park.websocket.MessageHandlerService;
+
+import javax.annotation.PostConstruct;
+
+@Component
+public class SpectateHandler extends MessageHandler<Spectate> {
+    private MessageHandlerService messageHandlerService;
+    private GameMechService gameMechService;
+    private AccountService accountService;
+
+    @Autowired
+    public SpectateHandler(MessageHandlerService messageHandlerService, GameMechService gameMechService,
+                           AccountService accountService) {
+        super(Spectate.class);
+        this.messageHandlerService = messageHandlerService;
+        this.gameMechService = gameMechService;
+        this.accountService = accountService;
+    }
+
+    @PostConstruct
+    private void init() {
+        messageHandlerService.registerHandler(Spectate.class, this);
+    }
+
+    @Override
+    public void handle(Spectate message, Connection connection) throws HandleException {
+        final UserProfile watched = message.getLogin() == null ? null
+                : accountService.getUserByLogin(message.getLogin());
+        if (watched == null || !gameMechService.addSpectator(connection, watched)) {
+            throw new HandleException("no game of user " + message.getLogin() + " to watch");
+        }
+    }
+}
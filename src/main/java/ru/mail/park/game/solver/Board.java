@@ -0,0 +1,109 @@
+package ru.mail.park.game.solver;
+
+import ru.mail.park.game.mechanics.Square;
+
+/**
+ * Immutable square packed into four longs like {@link Square#getPackedWord}, four bits per cell.
+ * Cells hold the value minus the minimum value, so a board fits up to 64 cells with up to 16 values.
+ */
+final class Board {
+    static final int MAX_CELLS = 64;
+    private static final int CELLS_PER_WORD = 16;
+    private static final long NIBBLE = 0xF;
+
+    private final long w0;
+    private final long w1;
+    private final long w2;
+    private final long w3;
+
+    Board(long w0, long w1, long w2, long w3) {
+        this.w0 = w0;
+        this.w1 = w1;
+        this.w2 = w2;
+        this.w3 = w3;
+    }
+
+    static Board of(Square square) {
+        return new Board(square.getPackedWord(0), square.getPackedWord(1), square.getPackedWord(2),
+                square.getPackedWord(3));
+    }
+
+    long getWord(int index) {
+        switch (index) {
+            case 0:
+                return w0;
+            case 1:
+                return w1;
+            case 2:
+                return w2;
+            default:
+                return w3;
+        }
+    }
+
+    int get(int cell) {
+        return (int) (word(cell) >>> shift(cell) & NIBBLE);
+    }
+
+    /**
+     * @param delta change of every cell, zero for cells that are left as is
+     */
+    Board add(int[] cells, int[] delta, int range) {
+        long a = w0;
+        long b = w1;
+        long c = w2;
+        long d = w3;
+        for (int i = 0; i < cells.length; i++) {
+            final int cell = cells[i];
+            final int value = Math.max(0, Math.min(range, get(cell) + delta[i]));
+            final long mask = ~(NIBBLE << shift(cell));
+            final long bits = (long) value << shift(cell);
+            switch (cell / CELLS_PER_WORD) {
+                case 0:
+                    a = a & mask | bits;
+                    break;
+                case 1:
+                    b = b & mask | bits;
+                    break;
+                case 2:
+                    c = c & mask | bits;
+                    break;
+                default:
+                    d = d & mask | bits;
+            }
+        }
+        return new Board(a, b, c, d);
+    }
+
+    private long word(int cell) {
+        return getWord(cell / CELLS_PER_WORD);
+    }
+
+    private static int shift(int cell) {
+        return (cell % CELLS_PER_WORD) * 4;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final Board board = (Board) o;
+        return w0 == board.w0 && w1 == board.w1 && w2 == board.w2 && w3 == board.w3;
+    }
+
+    /**
+     * @return a 64-bit hash of the cells, equal boards have equal fingerprints
+     */
+    long fingerprint() {
+        long hash = w0 * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ w1) * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ w2) * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ w3) * 0x9E3779B97F4A7C15L;
+        return hash ^ hash >>> 32;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) fingerprint();
+    }
+}
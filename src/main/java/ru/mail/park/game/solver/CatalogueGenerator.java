@@ -0,0 +1,182 @@
+package ru.mail.park.game.solver;
+
+import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.game.mechanics.Square;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+/**
+ * Offline tool that scrambles targets, rates them with the {@link Solver} and writes a {@link TargetCatalogue}.
+ * Square and solver settings are taken from application.properties on the classpath.
+ * <p>
+ * Usage: {@code mvn compile exec:java -Dexec.mainClass=ru.mail.park.game.solver.CatalogueGenerator
+ * -Dexec.args="<file> <count> [max scramble] [seed]"}
+ */
+public final class CatalogueGenerator {
+    private static final int DEFAULT_MAX_SCRAMBLE = 6;
+    private static final int PROGRESS_STEP = 100_000;
+    private static final int MAX_ATTEMPTS_PER_TARGET = 20;
+
+    private CatalogueGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: CatalogueGenerator <file> <count> [max scramble] [seed]");
+            System.exit(1);
+        }
+        loadSettings();
+        final int maxScramble = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_SCRAMBLE;
+        final SplittableRandom random = args.length > 3 ? new SplittableRandom(Long.parseLong(args[3]))
+                : new SplittableRandom();
+        final Solver solver = new Solver();
+        try {
+            final int[] counts = generate(Paths.get(args[0]), Integer.parseInt(args[1]), maxScramble, random, solver);
+            for (int difficulty = 0; difficulty < counts.length; difficulty++) {
+                System.out.println(difficulty + " moves: " + counts[difficulty]);
+            }
+        } finally {
+            solver.shutdown();
+        }
+    }
+
+    /**
+     * Writes {@code count} distinct targets, skipping repeats and the ones the solver gives up on.
+     * Stops short if {@value #MAX_ATTEMPTS_PER_TARGET} times as many scrambles don't yield that many.
+     * Only a 64-bit fingerprint of every target is kept in memory, the targets themselves are spilled
+     * to a temporary file per difficulty; two targets with the same fingerprint are taken for a repeat.
+     *
+     * @return number of targets written for every difficulty
+     */
+    public static int[] generate(Path output, int count, int maxScramble, SplittableRandom random, Solver solver)
+            throws IOException {
+        final FingerprintSet seen = new FingerprintSet();
+        final List<Path> files = new ArrayList<>();
+        final List<DataOutputStream> buckets = new ArrayList<>();
+        final List<Integer> counts = new ArrayList<>();
+        try {
+            final long maxAttempts = (long) count * MAX_ATTEMPTS_PER_TARGET;
+            int written = 0;
+            for (long attempt = 0; written < count && attempt < maxAttempts; attempt++) {
+                final Square target = new Square(1 + random.nextInt(maxScramble), random);
+                final Board board = Board.of(target);
+                if (!seen.add(board.fingerprint())) {
+                    continue;
+                }
+                final int difficulty = solver.rate(target);
+                if (difficulty < 0) {
+                    continue;
+                }
+                while (buckets.size() <= difficulty) {
+                    final Path file = Files.createTempFile(output.toAbsolutePath().getParent(), "targets", ".tmp");
+                    files.add(file);
+                    buckets.add(new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file))));
+                    counts.add(0);
+                }
+                final DataOutputStream bucket = buckets.get(difficulty);
+                for (int word = 0; word < 4; word++) {
+                    bucket.writeLong(board.getWord(word));
+                }
+                counts.set(difficulty, counts.get(difficulty) + 1);
+                written++;
+                if (written % PROGRESS_STEP == 0) {
+                    System.out.println("rated " + written + " of " + count + " in " + (attempt + 1) + " attempts");
+                }
+            }
+            for (DataOutputStream bucket : buckets) {
+                bucket.close();
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(output)))) {
+                out.writeInt(TargetCatalogue.MAGIC);
+                out.writeInt(TargetCatalogue.VERSION);
+                out.writeInt(GameSettings.getSquareSize());
+                out.writeInt(GameSettings.getSquareMinValue());
+                out.writeInt(GameSettings.getSquareMaxValue());
+                out.writeInt(counts.size() - 1);
+                for (int difficultyCount : counts) {
+                    out.writeInt(difficultyCount);
+                }
+                for (Path file : files) {
+                    Files.copy(file, out);
+                }
+            }
+        } finally {
+            for (DataOutputStream bucket : buckets) {
+                bucket.close();
+            }
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        return counts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void loadSettings() throws IOException {
+        final Properties properties = new Properties();
+        try (InputStream in = CatalogueGenerator.class.getResourceAsStream("/application.properties")) {
+            properties.load(in);
+        }
+        final GameSettings settings = new GameSettings();
+        settings.setSquareSize(Integer.parseInt(properties.getProperty("game.square-size")));
+        settings.setSquareMinValue(Integer.parseInt(properties.getProperty("game.square-min-value")));
+        settings.setSquareMaxValue(Integer.parseInt(properties.getProperty("game.square-max-value")));
+        settings.setSolverMaxDepth(Integer.parseInt(properties.getProperty("game.solver-max-depth")));
+        settings.setSolverMaxNodes(Long.parseLong(properties.getProperty("game.solver-max-nodes")));
+    }
+
+    /**
+     * Open-addressing set of fingerprints, eight bytes a target instead of a boxed board and a hash entry.
+     * Zero marks a free slot, so a zero fingerprint is stored as one.
+     */
+    private static final class FingerprintSet {
+        private static final int INITIAL_CAPACITY = 1 << 16;
+        private long[] slots = new long[INITIAL_CAPACITY];
+        private int size;
+
+        boolean add(long fingerprint) {
+            final long key = fingerprint == 0 ? 1 : fingerprint;
+            if (2 * (size + 1) > slots.length) {
+                grow();
+            }
+            if (!insert(slots, key)) {
+                return false;
+            }
+            size++;
+            return true;
+        }
+
+        private void grow() {
+            final long[] grown = new long[slots.length * 2];
+            for (long key : slots) {
+                if (key != 0) {
+                    insert(grown, key);
+                }
+            }
+            slots = grown;
+        }
+
+        private static boolean insert(long[] table, long key) {
+            final int mask = table.length - 1;
+            for (int slot = (int) key & mask; ; slot = slot + 1 & mask) {
+                if (table[slot] == 0) {
+                    table[slot] = key;
+                    return true;
+                }
+                if (table[slot] == key) {
+                    return false;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package ru.mail.park.game.solver;
+
+import ru.mail.park.game.messaging.PlayerAction;
+
+/**
+ * Moves of {@link ru.mail.park.game.mechanics.Square#activate} precomputed for packed boards.
+ * Move {@code 2 * cell} lowers the cell and its neighbours, move {@code 2 * cell + 1} raises them.
+ */
+final class Rules {
+    private static final int TARGET_DIFF = 2;
+    private static final int ADJACENT_DIFF = 1;
+    private static final int MAX_MOVE_CHANGE = TARGET_DIFF + 8 * ADJACENT_DIFF;
+
+    private final int size;
+    private final int range;
+    private final int[][] cells;
+    private final int[][] deltas;
+
+    Rules(int size, int minValue, int maxValue) {
+        if (size * size > Board.MAX_CELLS || maxValue - minValue > 15) {
+            throw new IllegalArgumentException("square is too large to pack: " + size + 'x' + size);
+        }
+        this.size = size;
+        this.range = maxValue - minValue;
+        cells = new int[2 * size * size][];
+        deltas = new int[2 * size * size][];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                addMove(row, col);
+            }
+        }
+    }
+
+    int getMoveCount() {
+        return cells.length;
+    }
+
+    Board apply(Board board, int move) {
+        return board.add(cells[move], deltas[move], range);
+    }
+
+    /**
+     * Lower bound of moves between boards: one move changes a cell by at most 2 and all cells by at most 10.
+     */
+    int estimate(Board from, Board to) {
+        int max = 0;
+        int sum = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            final int diff = Math.abs(from.get(cell) - to.get(cell));
+            max = Math.max(max, diff);
+            sum += diff;
+        }
+        return Math.max((max + TARGET_DIFF - 1) / TARGET_DIFF, (sum + MAX_MOVE_CHANGE - 1) / MAX_MOVE_CHANGE);
+    }
+
+    PlayerAction toAction(int move) {
+        final PlayerAction action = new PlayerAction();
+        action.setRow(move / 2 / size);
+        action.setCol(move / 2 % size);
+        action.setPositive(move % 2 == 1);
+        return action;
+    }
+
+    private void addMove(int row, int col) {
+        final int cellCount = countCells(row, col);
+        final int[] moveCells = new int[cellCount];
+        final int[] raise = new int[cellCount];
+        int i = 0;
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = col - 1; c <= col + 1; c++) {
+                if (r >= 0 && c >= 0 && r < size && c < size) {
+                    moveCells[i] = r * size + c;
+                    raise[i] = r == row && c == col ? TARGET_DIFF : ADJACENT_DIFF;
+                    i++;
+                }
+            }
+        }
+        final int[] lower = new int[cellCount];
+        for (int j = 0; j < cellCount; j++) {
+            lower[j] = -raise[j];
+        }
+        final int move = 2 * (row * size + col);
+        cells[move] = moveCells;
+        deltas[move] = lower;
+        cells[move + 1] = moveCells;
+        deltas[move + 1] = raise;
+    }
+
+    private int countCells(int row, int col) {
+        final int rows = Math.min(row + 1, size - 1) - Math.max(row - 1, 0) + 1;
+        final int cols = Math.min(col + 1, size - 1) - Math.max(col - 1, 0) + 1;
+        return rows * cols;
+    }
+}
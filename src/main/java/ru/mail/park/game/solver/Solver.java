@@ -0,0 +1,208 @@
+package ru.mail.park.game.solver;
+
+import org.jetbrains.annotations.Nullable;
+import org.springframework.stereotype.Service;
+import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.game.mechanics.GameSession;
+import ru.mail.park.game.mechanics.Player;
+import ru.mail.park.game.mechanics.Square;
+import ru.mail.park.game.messaging.PlayerAction;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Finds shortest move sequences between squares with IDA*.
+ * Boards are packed into longs, boards already reached in fewer moves are pruned through a transposition table,
+ * and every iteration searches the first moves in parallel on a dedicated fork-join pool.
+ * Searches give up after {@code game.solver-max-depth} moves or {@code game.solver-max-nodes} boards.
+ */
+@Service
+public class Solver {
+    private static final int TRANSPOSITION_LIMIT = 1 << 20;
+    private static final int NODE_BATCH = 1024;
+    private final ForkJoinPool pool;
+
+    public Solver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public Solver(int parallelism) {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * @return shortest moves from one square to the other, or null if the search gave up
+     */
+    @Nullable
+    public List<PlayerAction> solve(Square from, Square target) {
+        final Rules rules = new Rules(GameSettings.getSquareSize(), GameSettings.getSquareMinValue(),
+                GameSettings.getSquareMaxValue());
+        final int[] moves = search(rules, Board.of(from), Board.of(target));
+        if (moves == null) {
+            return null;
+        }
+        final List<PlayerAction> actions = new ArrayList<>(moves.length);
+        for (int move : moves) {
+            actions.add(rules.toAction(move));
+        }
+        return actions;
+    }
+
+    /**
+     * @return moves needed to build the target from a fresh square, or -1 if it is harder than the search limits
+     */
+    public int rate(Square target) {
+        final List<PlayerAction> solution = solve(new Square(), target);
+        return solution == null ? -1 : solution.size();
+    }
+
+    /**
+     * @return the first move of a shortest solution for the player, or null if solved or too hard
+     */
+    @Nullable
+    public PlayerAction hint(GameSession session, Player player) {
+        final List<PlayerAction> solution = solve(player.getSquare(), session.getTarget());
+        return solution == null || solution.isEmpty() ? null : solution.get(0);
+    }
+
+    @Nullable
+    private int[] search(Rules rules, Board start, Board target) {
+        if (start.equals(target)) {
+            return new int[0];
+        }
+        final Search search = new Search(rules, target);
+        int bound = rules.estimate(start, target);
+        while (bound <= GameSettings.getSolverMaxDepth()) {
+            search.startIteration(bound);
+            pool.invoke(new RootTask(search, start));
+            if (search.solution.get() != null) {
+                return search.solution.get();
+            }
+            if (search.exhausted.get() || search.nextBound.get() == Integer.MAX_VALUE) {
+                return null;
+            }
+            bound = search.nextBound.get();
+        }
+        return null;
+    }
+
+    private static final class Search {
+        private final Rules rules;
+        private final Board target;
+        private final Map<Board, Integer> transpositions = new ConcurrentHashMap<>();
+        private final AtomicReference<int[]> solution = new AtomicReference<>();
+        private final AtomicInteger nextBound = new AtomicInteger();
+        private final AtomicLong nodes = new AtomicLong();
+        private final AtomicBoolean exhausted = new AtomicBoolean();
+        private int bound;
+
+        private Search(Rules rules, Board target) {
+            this.rules = rules;
+            this.target = target;
+        }
+
+        private void startIteration(int iterationBound) {
+            bound = iterationBound;
+            nextBound.set(Integer.MAX_VALUE);
+            transpositions.clear();
+        }
+
+        private boolean isStopped() {
+            return solution.get() != null || exhausted.get();
+        }
+    }
+
+    private static final class RootTask extends RecursiveAction {
+        private final Search search;
+        private final Board start;
+
+        private RootTask(Search search, Board start) {
+            this.search = search;
+            this.start = start;
+        }
+
+        @Override
+        protected void compute() {
+            final List<MoveTask> tasks = new ArrayList<>(search.rules.getMoveCount());
+            for (int move = 0; move < search.rules.getMoveCount(); move++) {
+                tasks.add(new MoveTask(search, search.rules.apply(start, move), move));
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    private static final class MoveTask extends RecursiveAction {
+        private final Search search;
+        private final Board board;
+        private final int[] path;
+        private long uncountedNodes;
+
+        private MoveTask(Search search, Board board, int firstMove) {
+            this.search = search;
+            this.board = board;
+            this.path = new int[search.bound];
+            path[0] = firstMove;
+        }
+
+        @Override
+        protected void compute() {
+            visit(board, 1);
+            search.nodes.addAndGet(uncountedNodes);
+        }
+
+        private void visit(Board current, int depth) {
+            if (search.isStopped() || !countNode()) {
+                return;
+            }
+            final int estimate = depth + search.rules.estimate(current, search.target);
+            if (estimate > search.bound) {
+                search.nextBound.accumulateAndGet(estimate, Math::min);
+                return;
+            }
+            if (current.equals(search.target)) {
+                search.solution.compareAndSet(null, Arrays.copyOf(path, depth));
+                return;
+            }
+            final Integer reached = search.transpositions.get(current);
+            if (reached != null && reached <= depth) {
+                return;
+            }
+            if (search.transpositions.size() < TRANSPOSITION_LIMIT) {
+                search.transpositions.put(current, depth);
+            }
+            for (int move = 0; move < search.rules.getMoveCount(); move++) {
+                path[depth] = move;
+                visit(search.rules.apply(current, move), depth + 1);
+            }
+        }
+
+        private boolean countNode() {
+            if (++uncountedNodes < NODE_BATCH) {
+                return true;
+            }
+            final long total = search.nodes.addAndGet(uncountedNodes);
+            uncountedNodes = 0;
+            if (total > GameSettings.getSolverMaxNodes()) {
+                search.exhausted.set(true);
+                return false;
+            }
+            return true;
+        }
+    }
+}
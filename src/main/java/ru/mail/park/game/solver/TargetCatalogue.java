@@ -0,0 +1,108 @@
+package ru.mail.park.game.solver;
+
+import org.jetbrains.annotations.Nullable;
+import ru.mail.park.game.mechanics.Square;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * Read-only view of a target catalogue written by {@link CatalogueGenerator}.
+ * The file is memory-mapped, so targets are paged in on demand instead of being loaded into the heap.
+ * <p>
+ * Layout, big-endian: magic, version, square size, min value, max value, max difficulty,
+ * then the number of targets of every difficulty from 0 to max, then the targets ordered by difficulty,
+ * each packed into four longs like {@link Square#getPackedWord}.
+ */
+public class TargetCatalogue implements Closeable {
+    static final int MAGIC = 0x50544743;
+    static final int VERSION = 1;
+    static final int RECORD_BYTES = 4 * Long.BYTES;
+    private static final int HEADER_INTS = 6;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final int minValue;
+    private final int maxValue;
+    private final long[] firstRecord;
+    private final int[] counts;
+
+    public TargetCatalogue(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+                throw new IOException("not a target catalogue: " + path);
+            }
+            size = buffer.getInt(2 * Integer.BYTES);
+            minValue = buffer.getInt(3 * Integer.BYTES);
+            maxValue = buffer.getInt(4 * Integer.BYTES);
+            final int maxDifficulty = buffer.getInt(5 * Integer.BYTES);
+            counts = new int[maxDifficulty + 1];
+            firstRecord = new long[maxDifficulty + 1];
+            long offset = (HEADER_INTS + counts.length) * Integer.BYTES;
+            for (int difficulty = 0; difficulty <= maxDifficulty; difficulty++) {
+                counts[difficulty] = buffer.getInt((HEADER_INTS + difficulty) * Integer.BYTES);
+                firstRecord[difficulty] = offset;
+                offset += (long) counts[difficulty] * RECORD_BYTES;
+            }
+            if (offset != channel.size()) {
+                throw new IOException("truncated target catalogue: " + path);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public boolean fits(int squareSize, int squareMinValue, int squareMaxValue) {
+        return size == squareSize && minValue == squareMinValue && maxValue == squareMaxValue;
+    }
+
+    public int getMaxDifficulty() {
+        return counts.length - 1;
+    }
+
+    /**
+     * @return number of targets whose shortest solution has this many moves
+     */
+    public int count(int difficulty) {
+        return difficulty >= 0 && difficulty < counts.length ? counts[difficulty] : 0;
+    }
+
+    /**
+     * @return a random target of the difficulty, or null if there is none
+     */
+    @Nullable
+    public Square pick(int difficulty, SplittableRandom random) {
+        final int count = count(difficulty);
+        if (count == 0) {
+            return null;
+        }
+        return get(difficulty, random.nextInt(count));
+    }
+
+    /**
+     * Targets are unpacked into squares of the current settings, so only catalogues that {@link #fits} them
+     * give the right squares.
+     */
+    public Square get(int difficulty, int index) {
+        final int record = (int) (firstRecord[difficulty] + (long) index * RECORD_BYTES);
+        final long[] words = new long[RECORD_BYTES / Long.BYTES];
+        for (int word = 0; word < words.length; word++) {
+            words[word] = buffer.getLong(record + word * Long.BYTES);
+        }
+        return Square.unpack(words);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
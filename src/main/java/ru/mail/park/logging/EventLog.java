@@ -0,0 +1,146 @@
+package ru.mail.park.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.mail.park.logging.config.LogSettings;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One type of event, logged as {@code event=<name> key=value ...} with its parameters formatted
+ * only when the line is written.
+ * Debug and info events are sampled, one in {@code eventlog.sample-every} is logged.
+ * Warnings and errors are limited to {@code eventlog.max-per-second}, the next one logged after a flood
+ * tells how many were suppressed.
+ */
+public class EventLog {
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private final Logger logger;
+    private final String pattern;
+    private final String suppressedPattern;
+    private final AtomicLong occurrences = new AtomicLong();
+    private long windowStart = System.nanoTime();
+    private int loggedInWindow;
+    private long suppressed;
+
+    /**
+     * @param format the parameters of the event, such as {@code "login={} type={}"}
+     */
+    public EventLog(Class<?> clazz, String name, String format) {
+        logger = LoggerFactory.getLogger(clazz);
+        pattern = format.isEmpty() ? "event=" + name : "event=" + name + ' ' + format;
+        suppressedPattern = pattern + " suppressed={}";
+    }
+
+    public void debug(Object arg) {
+        if (logger.isDebugEnabled() && sample()) {
+            logger.debug(pattern, arg);
+        }
+    }
+
+    public void debug(Object first, Object second) {
+        if (logger.isDebugEnabled() && sample()) {
+            logger.debug(pattern, first, second);
+        }
+    }
+
+    public void debug(Object... args) {
+        if (logger.isDebugEnabled() && sample()) {
+            logger.debug(pattern, args);
+        }
+    }
+
+    public void info(Object... args) {
+        if (logger.isInfoEnabled() && sample()) {
+            logger.info(pattern, args);
+        }
+    }
+
+    /**
+     * A trailing throwable is logged with its stack trace.
+     */
+    public void warn(Object... args) {
+        if (!logger.isWarnEnabled()) {
+            return;
+        }
+        final long previouslySuppressed = admit(System.nanoTime());
+        if (previouslySuppressed == 0) {
+            logger.warn(pattern, args);
+        } else if (previouslySuppressed > 0) {
+            logger.warn(suppressedPattern, withSuppressed(args, previouslySuppressed));
+        }
+    }
+
+    /**
+     * A trailing throwable is logged with its stack trace.
+     */
+    public void error(Object... args) {
+        if (!logger.isErrorEnabled()) {
+            return;
+        }
+        final long previouslySuppressed = admit(System.nanoTime());
+        if (previouslySuppressed == 0) {
+            logger.error(pattern, args);
+        } else if (previouslySuppressed > 0) {
+            logger.error(suppressedPattern, withSuppressed(args, previouslySuppressed));
+        }
+    }
+
+    /**
+     * @return a parameter showing at most {@code maxLength} chars of the text, cut only if it gets logged
+     */
+    public static Object abbreviate(CharSequence text, int maxLength) {
+        return new Object() {
+            @Override
+            public String toString() {
+                if (text.length() <= maxLength) {
+                    return text.toString();
+                }
+                return text.subSequence(0, maxLength) + "...(" + text.length() + " chars)";
+            }
+        };
+    }
+
+    private boolean sample() {
+        final int sampleEvery = LogSettings.getSampleEvery();
+        if (sampleEvery <= 1 || occurrences.getAndIncrement() % sampleEvery == 0) {
+            return true;
+        }
+        LogMetrics.sampledOut();
+        return false;
+    }
+
+    /**
+     * Counts a warning or an error against the limit of the current second.
+     *
+     * @return how many events were suppressed since the last one logged, or -1 if this one is suppressed too
+     */
+    public synchronized long admit(long now) {
+        if (now - windowStart >= WINDOW_NANOS) {
+            windowStart = now;
+            loggedInWindow = 0;
+        }
+        if (loggedInWindow >= LogSettings.getMaxPerSecond()) {
+            suppressed++;
+            LogMetrics.suppressed();
+            return -1;
+        }
+        loggedInWindow++;
+        final long previouslySuppressed = suppressed;
+        suppressed = 0;
+        return previouslySuppressed;
+    }
+
+    private static Object[] withSuppressed(Object[] args, long previouslySuppressed) {
+        final Object[] extended = new Object[args.length + 1];
+        final boolean throwable = args.length > 0 && args[args.length - 1] instanceof Throwable;
+        final int parameters = throwable ? args.length - 1 : args.length;
+        System.arraycopy(args, 0, extended, 0, parameters);
+        extended[parameters] = previouslySuppressed;
+        if (throwable) {
+            extended[args.length] = args[args.length - 1];
+        }
+        return extended;
+    }
+}
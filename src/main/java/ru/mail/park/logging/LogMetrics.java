@@ -0,0 +1,32 @@
+package ru.mail.park.logging;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class LogMetrics implements PublicMetrics {
+    private static final LongAdder SUPPRESSED = new LongAdder();
+    private static final LongAdder SAMPLED_OUT = new LongAdder();
+
+    static void suppressed() {
+        SUPPRESSED.increment();
+    }
+
+    static void sampledOut() {
+        SAMPLED_OUT.increment();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("log.suppressed", SUPPRESSED.sum()));
+        metrics.add(new Metric<>("log.sampled-out", SAMPLED_OUT.sum()));
+        return metrics;
+    }
+}
@@ -0,0 +1,27 @@
+package ru.mail.park.logging.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties(prefix = "eventlog")
+@Component
+public class LogSettings {
+    private static int maxPerSecond = Integer.MAX_VALUE;
+    private static int sampleEvery = 1;
+
+    public static int getMaxPerSecond() {
+        return maxPerSecond;
+    }
+
+    public void setMaxPerSecond(int maxPerSecond) {
+        LogSettings.maxPerSecond = maxPerSecond;
+    }
+
+    public static int getSampleEvery() {
+        return sampleEvery;
+    }
+
+    public void setSampleEvery(int sampleEvery) {
+        LogSettings.sampleEvery = sampleEvery;
+    }
+}
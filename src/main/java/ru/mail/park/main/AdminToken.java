@@ -0,0 +1,24 @@
+package ru.mail.park.main;
+
+import org.jetbrains.annotations.Nullable;
+import org.springframework.util.StringUtils;
+import ru.mail.park.services.config.SecuritySettings;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Guards the admin API with {@code security.admin-token}, which is closed while the token is not set.
+ */
+final class AdminToken {
+    static final String HEADER = "X-Admin-Token";
+
+    private AdminToken() {
+    }
+
+    static boolean matches(@Nullable String token) {
+        final String adminToken = SecuritySettings.getAdminToken();
+        return !StringUtils.isEmpty(adminToken) && token != null && MessageDigest.isEqual(
+                adminToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+}
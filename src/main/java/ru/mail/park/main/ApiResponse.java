@@ -1,5 +1,7 @@
 package ru.mail.park.main;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 @SuppressWarnings("unused")
@@ -55,4 +57,16 @@ public class ApiResponse {
     public static ResponseEntity dbError() {
         return ResponseEntity.ok(new ApiResponse(ResponseCode.DB_ERROR));
     }
+
+    public static ResponseEntity recordingError() {
+        return ResponseEntity.ok(new ApiResponse(ResponseCode.RECORDING_ERROR));
+    }
+
+    /**
+     * Sent with 503 rather than 200, so that clients and proxies back off before retrying.
+     */
+    public static ResponseEntity overloaded() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiResponse(ResponseCode.OVERLOADED));
+    }
 }
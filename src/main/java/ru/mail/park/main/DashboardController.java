@@ -0,0 +1,41 @@
+package ru.mail.park.main;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.mail.park.monitoring.OpsDashboard;
+
+/**
+ * Live server stats as server-sent events. Browsers can't set headers on an event source,
+ * so the admin token may also come as the {@code token} parameter.
+ */
+@RestController
+public class DashboardController {
+    private final OpsDashboard opsDashboard;
+
+    @Autowired
+    public DashboardController(OpsDashboard opsDashboard) {
+        this.opsDashboard = opsDashboard;
+    }
+
+    @RequestMapping(path = "/api/admin/dashboard", method = RequestMethod.GET)
+    public ResponseEntity<SseEmitter> stream(@RequestHeader(name = AdminToken.HEADER, required = false) String header,
+                                             @RequestParam(name = "token", required = false) String token) {
+        if (!AdminToken.matches(header) && !AdminToken.matches(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null);
+        }
+        final SseEmitter viewer = opsDashboard.subscribe();
+        if (viewer == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(null);
+        }
+        return ResponseEntity.ok(viewer);
+    }
+}
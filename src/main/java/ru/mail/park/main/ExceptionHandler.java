@@ -3,9 +3,12 @@ package ru.mail.park.main;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 
+import java.util.concurrent.CompletionException;
+
 @ControllerAdvice
 public class ExceptionHandler {
     private final Logger logger = LoggerFactory.getLogger(getClass());
@@ -15,4 +18,16 @@ public class ExceptionHandler {
         logger.error("Exception: ", e);
         return ApiResponse.dbError();
     }
+
+    /**
+     * Failures of async responses arrive wrapped.
+     */
+    @org.springframework.web.bind.annotation.ExceptionHandler(CompletionException.class)
+    public ResponseEntity handleCompletionException(CompletionException e) {
+        if (e.getCause() instanceof DataAccessException) {
+            return handleDataAccessException((DataAccessException) e.getCause());
+        }
+        logger.error("Exception: ", e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    }
 }
@@ -0,0 +1,42 @@
+package ru.mail.park.main;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Serves the server's metrics to requests carrying the admin token in the {@value AdminToken#HEADER} header.
+ * The actuator endpoints are disabled, as they would be served to anyone on the application port.
+ */
+@RestController
+public class MetricsController {
+    private final List<PublicMetrics> publicMetrics;
+
+    @Autowired
+    public MetricsController(List<PublicMetrics> publicMetrics) {
+        this.publicMetrics = publicMetrics;
+    }
+
+    @RequestMapping(path = "/api/admin/metrics", method = RequestMethod.GET)
+    public ResponseEntity metrics(@RequestHeader(name = AdminToken.HEADER, required = false) String token) {
+        if (!AdminToken.matches(token)) {
+            return ApiResponse.authError();
+        }
+        final Map<String, Number> values = new TreeMap<>();
+        for (PublicMetrics source : publicMetrics) {
+            for (Metric<?> metric : source.metrics()) {
+                values.put(metric.getName(), metric.getValue());
+            }
+        }
+        return ApiResponse.ok(values);
+    }
+}
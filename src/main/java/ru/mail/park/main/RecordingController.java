@@ -0,0 +1,105 @@
+package ru.mail.park.main;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jdk.jfr.Recording;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import ru.mail.park.monitoring.RecordingService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+/**
+ * Starts and stops flight recordings of the running server, for requests carrying the admin token
+ * in the {@value AdminToken#HEADER} header.
+ */
+@RestController
+public class RecordingController {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final RecordingService recordingService;
+
+    @Autowired
+    public RecordingController(RecordingService recordingService) {
+        this.recordingService = recordingService;
+    }
+
+    @RequestMapping(path = "/api/admin/recording", method = RequestMethod.GET)
+    public ResponseEntity status(@RequestHeader(name = AdminToken.HEADER, required = false) String token) {
+        if (!AdminToken.matches(token)) {
+            return ApiResponse.authError();
+        }
+        return ApiResponse.ok(new RecordingStatus(recordingService.getRecording(), null));
+    }
+
+    @RequestMapping(path = "/api/admin/recording", method = RequestMethod.POST)
+    public ResponseEntity start(@RequestHeader(name = AdminToken.HEADER, required = false) String token) {
+        if (!AdminToken.matches(token)) {
+            return ApiResponse.authError();
+        }
+        if (!recordingService.isAvailable()) {
+            return ApiResponse.recordingError();
+        }
+        try {
+            return ApiResponse.ok(new RecordingStatus(recordingService.start(), null));
+        } catch (IOException | ParseException | IllegalStateException e) {
+            logger.error("failed to start flight recording", e);
+            return ApiResponse.recordingError();
+        }
+    }
+
+    @RequestMapping(path = "/api/admin/recording", method = RequestMethod.DELETE)
+    public ResponseEntity stop(@RequestHeader(name = AdminToken.HEADER, required = false) String token) {
+        if (!AdminToken.matches(token)) {
+            return ApiResponse.authError();
+        }
+        try {
+            final Path file = recordingService.stop();
+            return ApiResponse.ok(new RecordingStatus(null, file == null ? null : file.toAbsolutePath().toString()));
+        } catch (IOException | IllegalStateException e) {
+            logger.error("failed to stop flight recording", e);
+            return ApiResponse.recordingError();
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private static final class RecordingStatus {
+        private boolean recording;
+        private String name;
+        private Long startedAt;
+        private String file;
+
+        private RecordingStatus(@Nullable Recording recording, @Nullable String file) {
+            this.recording = recording != null;
+            if (recording != null) {
+                name = recording.getName();
+                startedAt = recording.getStartTime() == null ? null : recording.getStartTime().toEpochMilli();
+            }
+            this.file = file;
+        }
+
+        public boolean isRecording() {
+            return recording;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Long getStartedAt() {
+            return startedAt;
+        }
+
+        public String getFile() {
+            return file;
+        }
+    }
+}
@@ -1,61 +1,102 @@
 package ru.mail.park.main;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.jetbrains.annotations.Nullable;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import ru.mail.park.game.bot.BotPlayer;
 import ru.mail.park.model.UserProfile;
 import ru.mail.park.model.exception.UserAlreadyExistsException;
 import ru.mail.park.services.AccountService;
-import ru.mail.park.services.SecurityService;
+import ru.mail.park.services.HashingService;
+import ru.mail.park.services.SessionToken;
+import ru.mail.park.services.SessionTokenService;
+import ru.mail.park.services.UserNameFilter;
 
 import javax.servlet.http.HttpSession;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @CrossOrigin
 @RestController
 public class RegistrationController {
     private final AccountService accountService;
-    private final SecurityService securityService;
+    private final HashingService hashingService;
+    private final SessionTokenService sessionTokenService;
+    private final UserNameFilter userNameFilter;
 
     @Autowired
-    public RegistrationController(AccountService accountService, SecurityService securityService) {
+    public RegistrationController(AccountService accountService, HashingService hashingService,
+                                  SessionTokenService sessionTokenService, UserNameFilter userNameFilter) {
         this.accountService = accountService;
-        this.securityService = securityService;
+        this.hashingService = hashingService;
+        this.sessionTokenService = sessionTokenService;
+        this.userNameFilter = userNameFilter;
     }
 
+    /**
+     * Responds once the password is hashed, the request thread is released meanwhile.
+     * Names known to be taken are refused before spending a hash on them.
+     */
     @RequestMapping(path = "/api/user", method = RequestMethod.POST)
-    public ResponseEntity signup(@RequestBody RegistrationRequest body) {
+    public CompletableFuture<ResponseEntity> signup(@RequestBody RegistrationRequest body) {
         final String login = body.getLogin();
         final String password = body.getPassword();
         final String email = body.getEmail();
         if (StringUtils.isEmpty(login) || StringUtils.isEmpty(password) || StringUtils.isEmpty(email)) {
-            return ApiResponse.parameterMissing();
-        }
-        try {
-            accountService.addUser(login, securityService.encode(password), email);
-        } catch (UserAlreadyExistsException e) {
-            return ApiResponse.duplicateUser();
-        }
-        return ApiResponse.ok(new SuccessResponse(login));
+            return CompletableFuture.completedFuture(ApiResponse.parameterMissing());
+        }
+        if (BotPlayer.LOGIN.equalsIgnoreCase(login) || !userNameFilter.isLoginAvailable(login)
+                || !userNameFilter.isEmailAvailable(email)) {
+            return CompletableFuture.completedFuture(ApiResponse.duplicateUser());
+        }
+        return hashingService.encode(password).thenApply(hash -> {
+            try {
+                accountService.addUser(login, hash, email);
+            } catch (UserAlreadyExistsException e) {
+                userNameFilter.add(login, email);
+                return ApiResponse.duplicateUser();
+            }
+            userNameFilter.add(login, email);
+            return ApiResponse.ok(new SuccessResponse(login));
+        }).exceptionally(RegistrationController::hashingFailed);
     }
 
+    /**
+     * Responds once the password is checked, the request thread is released meanwhile.
+     * Besides the HTTP session, the response carries a session token for bearer authentication.
+     */
     @RequestMapping(path = "/api/session", method = RequestMethod.POST)
-    public ResponseEntity auth(@RequestBody AuthRequest body, HttpSession httpSession) {
+    public CompletableFuture<ResponseEntity> auth(@RequestBody AuthRequest body, HttpSession httpSession) {
         final String login = body.getLogin();
         final String password = body.getPassword();
         if (StringUtils.isEmpty(login) || StringUtils.isEmpty(password)) {
-            return ApiResponse.parameterMissing();
+            return CompletableFuture.completedFuture(ApiResponse.parameterMissing());
         }
         final UserProfile user = accountService.getUserByLogin(login);
-        if (user == null || !securityService.matches(password, user.getPassword())) {
-            return ApiResponse.authError();
-        }
-        httpSession.setAttribute("login", login);
-        return ApiResponse.ok(new SuccessResponse(login));
+        if (user == null) {
+            return CompletableFuture.completedFuture(ApiResponse.authError());
+        }
+        return hashingService.matches(password, user.getPassword()).thenApply(matches -> {
+            if (!matches) {
+                return ApiResponse.authError();
+            }
+            httpSession.setAttribute("login", login);
+            return ApiResponse.ok(new SuccessResponse(login, sessionTokenService.issue(user)));
+        }).exceptionally(RegistrationController::hashingFailed);
     }
 
     @RequestMapping(path = "/api/session", method = RequestMethod.GET)
-    public ResponseEntity sessionAuth(HttpSession httpSession) {
+    public ResponseEntity sessionAuth(@RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false)
+                                              String authorization, HttpSession httpSession) {
+        final SessionToken sessionToken = verifyBearer(authorization);
+        if (sessionToken != null) {
+            return ApiResponse.ok(new SuccessResponse(sessionToken.getLogin()));
+        }
         final Object httpSessionLogin = httpSession.getAttribute("login");
         if (httpSessionLogin == null) {
             return ApiResponse.authError();
@@ -67,27 +108,60 @@ public class RegistrationController {
         return ApiResponse.ok(new SuccessResponse(user.getLogin()));
     }
 
+    /**
+     * Session tokens can't be revoked, a client logs out of one by dropping it.
+     */
     @RequestMapping(path = "/api/session", method = RequestMethod.DELETE)
-    public ResponseEntity logout(HttpSession httpSession) {
+    public ResponseEntity logout(@RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false)
+                                         String authorization, HttpSession httpSession) {
         final Object httpSessionLogin = httpSession.getAttribute("login");
-        if (httpSessionLogin == null) {
+        if (httpSessionLogin != null) {
+            httpSession.removeAttribute("login");
+            return ApiResponse.ok(new SuccessResponse((String) httpSessionLogin));
+        }
+        final SessionToken sessionToken = verifyBearer(authorization);
+        if (sessionToken == null) {
             return ApiResponse.authError();
         }
-        httpSession.removeAttribute("login");
-        return ApiResponse.ok(new SuccessResponse((String) httpSessionLogin));
+        return ApiResponse.ok(new SuccessResponse(sessionToken.getLogin()));
+    }
+
+    @Nullable
+    private SessionToken verifyBearer(@Nullable String authorization) {
+        return sessionTokenService.verify(SessionTokenService.fromBearer(authorization));
+    }
+
+    private static ResponseEntity hashingFailed(Throwable throwable) {
+        final Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+        if (cause instanceof RejectedExecutionException) {
+            return ApiResponse.overloaded();
+        }
+        throw throwable instanceof CompletionException ? (CompletionException) throwable
+                : new CompletionException(throwable);
     }
 
     @SuppressWarnings("unused")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private static final class SuccessResponse {
         private String login;
+        private String token;
 
         private SuccessResponse(String login) {
             this.login = login;
         }
 
+        private SuccessResponse(String login, String token) {
+            this.login = login;
+            this.token = token;
+        }
+
         public String getLogin() {
             return login;
         }
+
+        public String getToken() {
+            return token;
+        }
     }
 
     @SuppressWarnings("unused")
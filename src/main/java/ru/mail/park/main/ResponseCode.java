@@ -6,7 +6,9 @@ public enum ResponseCode {
     PARAMETER_MISSING(1, "Required parameter is missing"),
     AUTH_ERROR(2, "Authorization error"),
     DUPLICATE_USER(3, "User is already registered"),
-    DB_ERROR(8, "Error querying database");
+    DB_ERROR(8, "Error querying database"),
+    OVERLOADED(9, "Server is busy, try again later"),
+    RECORDING_ERROR(10, "Flight recording failed");
 
     private int code;
     private String message;
@@ -1,18 +1,23 @@
 package ru.mail.park.main;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import ru.mail.park.services.AccountService;
+import ru.mail.park.services.UserNameFilter;
 
 @CrossOrigin
 @RestController
 public class UserController {
     private final AccountService accountService;
+    private final UserNameFilter userNameFilter;
 
     @Autowired
-    public UserController(AccountService accountService) {
+    public UserController(AccountService accountService, UserNameFilter userNameFilter) {
         this.accountService = accountService;
+        this.userNameFilter = userNameFilter;
     }
 
     @RequestMapping(path = "/api/user/top", method = RequestMethod.GET)
@@ -25,6 +30,41 @@ public class UserController {
 
     }
 
+    /**
+     * For the signup form. Names the filter has never seen are answered without the database,
+     * and signup itself still has the final word.
+     */
+    @RequestMapping(path = "/api/user/available", method = RequestMethod.GET)
+    public ResponseEntity available(@RequestParam(required = false) String login,
+                                    @RequestParam(required = false) String email) {
+        if (StringUtils.isEmpty(login) && StringUtils.isEmpty(email)) {
+            return ApiResponse.parameterMissing();
+        }
+        return ApiResponse.ok(new Availability(
+                StringUtils.isEmpty(login) ? null : userNameFilter.isLoginAvailable(login),
+                StringUtils.isEmpty(email) ? null : userNameFilter.isEmailAvailable(email)));
+    }
+
+    @SuppressWarnings("unused")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private static final class Availability {
+        private Boolean login;
+        private Boolean email;
+
+        private Availability(Boolean login, Boolean email) {
+            this.login = login;
+            this.email = email;
+        }
+
+        public Boolean getLogin() {
+            return login;
+        }
+
+        public Boolean getEmail() {
+            return email;
+        }
+    }
+
     @SuppressWarnings("unused")
     private static final class LoginAndRank {
         private String login;
@@ -1,9 +1,16 @@
 package ru.mail.park.model;
 
 import java.util.List;
+import java.util.function.BiConsumer;
 
 public interface UserDao extends AbstractDao<UserProfile> {
     UserProfile getByLogin(String login);
 
+    UserProfile getByEmail(String email);
+
+    void forEachLoginAndEmail(BiConsumer<String, String> consumer);
+
     List<UserProfile> getTopRanked(int limit);
+
+    void addRank(String login, int delta);
 }
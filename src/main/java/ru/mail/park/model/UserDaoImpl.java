@@ -5,6 +5,7 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import ru.mail.park.model.exception.UserAlreadyExistsException;
 
 import java.util.List;
+import java.util.function.BiConsumer;
 
 public class UserDaoImpl extends BaseDao<UserProfile> implements UserDao {
     public UserDaoImpl(JdbcTemplate jdbcTemplate) {
@@ -21,6 +22,24 @@ public class UserDaoImpl extends BaseDao<UserProfile> implements UserDao {
         return list.get(0);
     }
 
+    @Override
+    public UserProfile getByEmail(String email) {
+        final List<UserProfile> list = getJdbcTemplate().query("SELECT * FROM user_profile WHERE email = ?;",
+                new UserRowMapper(), email);
+        if (list.isEmpty()) {
+            return null;
+        }
+        return list.get(0);
+    }
+
+    @Override
+    public void forEachLoginAndEmail(BiConsumer<String, String> consumer) {
+        getJdbcTemplate().query("SELECT login, email FROM user_profile;",
+                resultSet -> {
+                    consumer.accept(resultSet.getString("login"), resultSet.getString("email"));
+                });
+    }
+
     @Override
     public List<UserProfile> getTopRanked(int limit) {
         final String limitOperator = limit > 0 ? " LIMIT " + limit : "";
@@ -49,6 +68,11 @@ public class UserDaoImpl extends BaseDao<UserProfile> implements UserDao {
                 "login = ?;", entity.getRank(), entity.getLogin());
     }
 
+    @Override
+    public void addRank(String login, int delta) {
+        getJdbcTemplate().update("UPDATE user_profile SET rank = rank + ? WHERE login = ?;", delta, login);
+    }
+
     @Override
     public void delete(UserProfile entity) {
         throw new UnsupportedOperationException();
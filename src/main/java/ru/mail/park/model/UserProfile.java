@@ -1,6 +1,9 @@
 package ru.mail.park.model;
 
+import java.util.Objects;
+
 public class UserProfile implements BaseDaoEntity {
+    private int id;
     private String login;
     private String email;
     private String password;
@@ -19,6 +22,18 @@ public class UserProfile implements BaseDaoEntity {
         this.rank = rank;
     }
 
+    public UserProfile(int id, String login, String email, String password, int rank) {
+        this(login, email, password, rank);
+        this.id = id;
+    }
+
+    /**
+     * Stable key of the user in live game state, unlike the profile itself whose rank changes.
+     */
+    public int getId() {
+        return id;
+    }
+
     public String getLogin() {
         return login;
     }
@@ -46,16 +61,16 @@ public class UserProfile implements BaseDaoEntity {
         if (o == null || getClass() != o.getClass()) return false;
         final UserProfile userProfile = (UserProfile) o;
         if (rank != userProfile.rank) return false;
-        if (!login.equals(userProfile.login)) return false;
-        if (!email.equals(userProfile.email)) return false;
-        return password.equals(userProfile.password);
+        if (!Objects.equals(login, userProfile.login)) return false;
+        if (!Objects.equals(email, userProfile.email)) return false;
+        return Objects.equals(password, userProfile.password);
     }
 
     @Override
     public int hashCode() {
-        int result = login.hashCode();
-        result = 31 * result + email.hashCode();
-        result = 31 * result + password.hashCode();
+        int result = Objects.hashCode(login);
+        result = 31 * result + Objects.hashCode(email);
+        result = 31 * result + Objects.hashCode(password);
         result = 31 * result + rank;
         return result;
     }
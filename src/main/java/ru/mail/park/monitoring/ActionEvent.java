@@ -0,0 +1,27 @@
+package ru.mail.park.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans a move from taking the session lock to the snaps being queued, game over included.
+ */
+@Name("ru.mail.park.ProcessAction")
+@Label("Process Action")
+@Category({"Puzzle", "Game"})
+@StackTrace(false)
+public class ActionEvent extends Event {
+    @Label("Session")
+    public long sessionId;
+    @Label("Login")
+    public String login;
+    @Label("Row")
+    public int row;
+    @Label("Column")
+    public int col;
+    @Label("Positive")
+    public boolean positive;
+}
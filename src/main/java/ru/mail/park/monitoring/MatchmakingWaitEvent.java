@@ -0,0 +1,22 @@
+package ru.mail.park.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("ru.mail.park.MatchmakingWait")
+@Label("Matchmaking Wait")
+@Category({"Puzzle", "Game"})
+@StackTrace(false)
+public class MatchmakingWaitEvent extends Event {
+    @Label("Login")
+    public String login;
+    @Label("Against Bot")
+    public boolean bot;
+    @Label("Wait")
+    @Timespan
+    public long wait;
+}
@@ -0,0 +1,25 @@
+package ru.mail.park.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans encoding the envelope and queueing it for the recipients, the write itself is asynchronous.
+ */
+@Name("ru.mail.park.MessageSend")
+@Label("Message Send")
+@Category({"Puzzle", "Messaging"})
+@StackTrace(false)
+public class MessageSendEvent extends Event {
+    @Label("Type")
+    public String type;
+    @Label("Recipients")
+    public int recipients;
+    @Label("Droppable")
+    public boolean droppable;
+    @Label("Length")
+    public int length;
+}
@@ -0,0 +1,165 @@
+package ru.mail.park.monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.metadata.DataSourcePoolMetadata;
+import org.springframework.boot.autoconfigure.jdbc.metadata.DataSourcePoolMetadataProvider;
+import org.springframework.boot.autoconfigure.jdbc.metadata.DataSourcePoolMetadataProviders;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.mail.park.game.GameMechService;
+import ru.mail.park.monitoring.config.MonitoringSettings;
+import ru.mail.park.websocket.RemotePointService;
+import ru.mail.park.websocket.SendQueueMetrics;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams {@link OpsStats} to the dashboard viewers every {@code monitoring.dashboard-interval-ms}.
+ * One thread gathers the stats from counters the game keeps anyway and encodes them once for all viewers,
+ * so viewers cost the game nothing. At most {@code monitoring.dashboard-max-viewers} watch at a time.
+ */
+@Service
+public class OpsDashboard {
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double P50 = 50;
+    private static final double P99 = 99;
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final RemotePointService remotePointService;
+    private final GameMechService gameMechService;
+    private final DataSource dataSource;
+    private final DataSourcePoolMetadataProvider poolMetadataProvider;
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<SseEmitter> viewers = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService ticker;
+    private volatile String latest;
+    private long lastTickAt;
+    private long lastCharsWritten;
+
+    @Autowired
+    public OpsDashboard(RemotePointService remotePointService, GameMechService gameMechService,
+                        DataSource dataSource, List<DataSourcePoolMetadataProvider> poolMetadataProviders) {
+        this.remotePointService = remotePointService;
+        this.gameMechService = gameMechService;
+        this.dataSource = dataSource;
+        this.poolMetadataProvider = new DataSourcePoolMetadataProviders(poolMetadataProviders);
+    }
+
+    /**
+     * Started once the context is refreshed: the settings are static and may not be bound yet
+     * when this service is created.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        lastTickAt = System.nanoTime();
+        lastCharsWritten = SendQueueMetrics.getCharsWritten();
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "ops-dashboard");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long intervalMs = MonitoringSettings.getDashboardIntervalMs();
+        ticker.scheduleAtFixedRate(this::tick, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    private synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+        viewers.forEach(SseEmitter::complete);
+        viewers.clear();
+    }
+
+    /**
+     * @return a stream starting with the latest stats, or null if there are as many viewers as allowed
+     */
+    @Nullable
+    public synchronized SseEmitter subscribe() {
+        if (viewers.size() >= MonitoringSettings.getDashboardMaxViewers()) {
+            return null;
+        }
+        final SseEmitter viewer = new SseEmitter(0L);
+        viewer.onCompletion(() -> viewers.remove(viewer));
+        viewer.onTimeout(() -> viewers.remove(viewer));
+        viewers.add(viewer);
+        final String stats = latest;
+        if (stats != null) {
+            send(viewer, stats);
+        }
+        return viewer;
+    }
+
+    public int getViewerCount() {
+        return viewers.size();
+    }
+
+    private void tick() {
+        try {
+            final String stats = objectMapper.writeValueAsString(collect(System.nanoTime()));
+            latest = stats;
+            for (SseEmitter viewer : viewers) {
+                send(viewer, stats);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("ops dashboard tick failed", e);
+        }
+    }
+
+    private OpsStats collect(long now) {
+        final double seconds = Math.max(1, now - lastTickAt) / NANOS_PER_SECOND;
+        final LatencyHistogram.Snapshot moves = gameMechService.getMoveLatency().drain();
+        final long charsWritten = SendQueueMetrics.getCharsWritten();
+        final OpsStats stats = new OpsStats();
+        stats.setTime(System.currentTimeMillis());
+        stats.setConnections(remotePointService.getConnectionCount());
+        stats.setQueued(gameMechService.getQueueLength());
+        stats.setSessions(gameMechService.getSessions().size());
+        stats.setMovesPerSecond(moves.getCount() / seconds);
+        stats.setMoveLatencyP50(moves.getPercentile(P50));
+        stats.setMoveLatencyP99(moves.getPercentile(P99));
+        stats.setOutboundCharsPerSecond((charsWritten - lastCharsWritten) / seconds);
+        final DataSourcePoolMetadata pool = poolMetadataProvider.getDataSourcePoolMetadata(dataSource);
+        if (pool != null) {
+            stats.setDbActive(pool.getActive());
+            stats.setDbMax(pool.getMax());
+        }
+        final MemoryUsage heap = memory.getHeapMemoryUsage();
+        stats.setHeapUsed(heap.getUsed());
+        stats.setHeapMax(heap.getMax());
+        lastTickAt = now;
+        lastCharsWritten = charsWritten;
+        return stats;
+    }
+
+    /**
+     * A viewer that has gone away is only forgotten here, the container completes its request.
+     */
+    private void send(SseEmitter viewer, String stats) {
+        try {
+            viewer.send(SseEmitter.event().name("stats").data(stats, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            viewers.remove(viewer);
+        }
+    }
+}
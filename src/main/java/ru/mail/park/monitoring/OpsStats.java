@@ -0,0 +1,121 @@
+package ru.mail.park.monitoring;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One second of the server as the ops dashboard shows it. Rates are per second, latencies in microseconds,
+ * memory in bytes, outbound volume in payload chars before encoding and compression,
+ * and the database pool is left out if its metadata is not known.
+ */
+@SuppressWarnings("unused")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OpsStats {
+    private long time;
+    private int connections;
+    private int queued;
+    private int sessions;
+    private double movesPerSecond;
+    private long moveLatencyP50;
+    private long moveLatencyP99;
+    private double outboundCharsPerSecond;
+    private Integer dbActive;
+    private Integer dbMax;
+    private long heapUsed;
+    private long heapMax;
+
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public void setConnections(int connections) {
+        this.connections = connections;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public void setQueued(int queued) {
+        this.queued = queued;
+    }
+
+    public int getSessions() {
+        return sessions;
+    }
+
+    public void setSessions(int sessions) {
+        this.sessions = sessions;
+    }
+
+    public double getMovesPerSecond() {
+        return movesPerSecond;
+    }
+
+    public void setMovesPerSecond(double movesPerSecond) {
+        this.movesPerSecond = movesPerSecond;
+    }
+
+    public long getMoveLatencyP50() {
+        return moveLatencyP50;
+    }
+
+    public void setMoveLatencyP50(long moveLatencyP50) {
+        this.moveLatencyP50 = moveLatencyP50;
+    }
+
+    public long getMoveLatencyP99() {
+        return moveLatencyP99;
+    }
+
+    public void setMoveLatencyP99(long moveLatencyP99) {
+        this.moveLatencyP99 = moveLatencyP99;
+    }
+
+    public double getOutboundCharsPerSecond() {
+        return outboundCharsPerSecond;
+    }
+
+    public void setOutboundCharsPerSecond(double outboundCharsPerSecond) {
+        this.outboundCharsPerSecond = outboundCharsPerSecond;
+    }
+
+    public Integer getDbActive() {
+        return dbActive;
+    }
+
+    public void setDbActive(Integer dbActive) {
+        this.dbActive = dbActive;
+    }
+
+    public Integer getDbMax() {
+        return dbMax;
+    }
+
+    public void setDbMax(Integer dbMax) {
+        this.dbMax = dbMax;
+    }
+
+    public long getHeapUsed() {
+        return heapUsed;
+    }
+
+    public void setHeapUsed(long heapUsed) {
+        this.heapUsed = heapUsed;
+    }
+
+    public long getHeapMax() {
+        return heapMax;
+    }
+
+    public void setHeapMax(long heapMax) {
+        this.heapMax = heapMax;
+    }
+}
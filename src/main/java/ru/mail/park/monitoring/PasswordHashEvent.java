@@ -0,0 +1,23 @@
+package ru.mail.park.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Spans the bcrypt work on a hashing thread, the time spent queued before it is a field.
+ */
+@Name("ru.mail.park.PasswordHash")
+@Label("Password Hash")
+@Category({"Puzzle", "Security"})
+@StackTrace(false)
+public class PasswordHashEvent extends Event {
+    @Label("Operation")
+    public String operation;
+    @Label("Queued")
+    @Timespan
+    public long queued;
+}
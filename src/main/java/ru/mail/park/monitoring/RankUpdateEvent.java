@@ -0,0 +1,18 @@
+package ru.mail.park.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("ru.mail.park.RankUpdate")
+@Label("Rank Update")
+@Category({"Puzzle", "Database"})
+public class RankUpdateEvent extends Event {
+    @Label("Winner")
+    public String winner;
+    @Label("Loser")
+    public String loser;
+    @Label("Amount")
+    public int amount;
+}
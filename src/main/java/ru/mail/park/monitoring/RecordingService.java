@@ -0,0 +1,81 @@
+package ru.mail.park.monitoring;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.stereotype.Service;
+import ru.mail.park.monitoring.config.MonitoringSettings;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Flight recordings started and stopped through the admin API, one at a time.
+ * A recording uses the JDK settings named by {@code monitoring.recording-settings}, the game events
+ * are always on, and only the last {@code monitoring.recording-max-age-ms} are kept.
+ * Stopping dumps it to {@code monitoring.recording-dir}.
+ */
+@Service
+public class RecordingService {
+    private Recording recording;
+
+    public boolean isAvailable() {
+        return FlightRecorder.isAvailable();
+    }
+
+    /**
+     * @return the recording going on, a new one unless it was already started
+     */
+    public synchronized Recording start() throws IOException, ParseException {
+        if (recording == null) {
+            final Recording started = new Recording(
+                    Configuration.getConfiguration(MonitoringSettings.getRecordingSettings()));
+            started.setName("puzzle-" + System.currentTimeMillis());
+            started.setToDisk(true);
+            started.setMaxAge(Duration.ofMillis(MonitoringSettings.getRecordingMaxAgeMs()));
+            started.start();
+            recording = started;
+        }
+        return recording;
+    }
+
+    @Nullable
+    public synchronized Recording getRecording() {
+        return recording;
+    }
+
+    /**
+     * @return the file the recording was dumped to, or null if nothing was being recorded
+     */
+    @Nullable
+    public synchronized Path stop() throws IOException {
+        if (recording == null) {
+            return null;
+        }
+        final Path dir = Paths.get(MonitoringSettings.getRecordingDir());
+        final Path file = dir.resolve(recording.getName() + ".jfr");
+        try {
+            Files.createDirectories(dir);
+            recording.stop();
+            recording.dump(file);
+        } finally {
+            recording.close();
+            recording = null;
+        }
+        return file;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
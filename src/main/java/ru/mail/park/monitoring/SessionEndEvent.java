@@ -0,0 +1,21 @@
+package ru.mail.park.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Has no winner when the session was terminated.
+ */
+@Name("ru.mail.park.SessionEnd")
+@Label("Game Session End")
+@Category({"Puzzle", "Game"})
+@StackTrace(false)
+public class SessionEndEvent extends Event {
+    @Label("Session")
+    public long sessionId;
+    @Label("Winner")
+    public String winner;
+}
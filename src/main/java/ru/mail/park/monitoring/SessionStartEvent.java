@@ -0,0 +1,22 @@
+package ru.mail.park.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("ru.mail.park.SessionStart")
+@Label("Game Session Start")
+@Category({"Puzzle", "Game"})
+@StackTrace(false)
+public class SessionStartEvent extends Event {
+    @Label("Session")
+    public long sessionId;
+    @Label("First Player")
+    public String first;
+    @Label("Second Player")
+    public String second;
+    @Label("Against Bot")
+    public boolean bot;
+}
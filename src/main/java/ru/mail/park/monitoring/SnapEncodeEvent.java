@@ -0,0 +1,20 @@
+package ru.mail.park.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("ru.mail.park.SnapEncode")
+@Label("Snap Encode")
+@Category({"Puzzle", "Messaging"})
+@StackTrace(false)
+public class SnapEncodeEvent extends Event {
+    @Label("Session")
+    public long sessionId;
+    @Label("Spectators")
+    public boolean spectators;
+    @Label("Length")
+    public int length;
+}
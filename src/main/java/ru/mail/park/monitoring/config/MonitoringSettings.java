@@ -0,0 +1,54 @@
+package ru.mail.park.monitoring.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties(prefix = "monitoring")
+@Component
+public class MonitoringSettings {
+    private static String recordingDir;
+    private static String recordingSettings;
+    private static long recordingMaxAgeMs;
+    private static long dashboardIntervalMs;
+    private static int dashboardMaxViewers;
+
+    public static String getRecordingDir() {
+        return recordingDir;
+    }
+
+    public void setRecordingDir(String recordingDir) {
+        MonitoringSettings.recordingDir = recordingDir;
+    }
+
+    public static String getRecordingSettings() {
+        return recordingSettings;
+    }
+
+    public void setRecordingSettings(String recordingSettings) {
+        MonitoringSettings.recordingSettings = recordingSettings;
+    }
+
+    public static long getRecordingMaxAgeMs() {
+        return recordingMaxAgeMs;
+    }
+
+    public void setRecordingMaxAgeMs(long recordingMaxAgeMs) {
+        MonitoringSettings.recordingMaxAgeMs = recordingMaxAgeMs;
+    }
+
+    public static long getDashboardIntervalMs() {
+        return dashboardIntervalMs;
+    }
+
+    public void setDashboardIntervalMs(long dashboardIntervalMs) {
+        MonitoringSettings.dashboardIntervalMs = dashboardIntervalMs;
+    }
+
+    public static int getDashboardMaxViewers() {
+        return dashboardMaxViewers;
+    }
+
+    public void setDashboardMaxViewers(int dashboardMaxViewers) {
+        MonitoringSettings.dashboardMaxViewers = dashboardMaxViewers;
+    }
+}
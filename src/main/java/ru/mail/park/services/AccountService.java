@@ -3,15 +3,29 @@ package ru.mail.park.services;
 import ru.mail.park.model.UserProfile;
 
 import java.util.List;
+import java.util.function.BiConsumer;
 
 public interface AccountService {
     void addUser(String login, String password, String email);
 
     UserProfile getUserByLogin(String login);
 
+    UserProfile getUserByEmail(String email);
+
+    /**
+     * Streams the login and email of every user without loading whole profiles.
+     */
+    void forEachLoginAndEmail(BiConsumer<String, String> consumer);
+
     List<UserProfile> getTopRanked(int limit);
 
     void updateUser(UserProfile userProfile);
 
     void updateUsers(List<UserProfile> userProfiles);
+
+    /**
+     * Moves rank from the loser to the winner relative to their stored ranks,
+     * so profiles with a stale rank never overwrite a newer one.
+     */
+    void transferRank(UserProfile winner, UserProfile loser, int amount);
 }
@@ -6,26 +6,41 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.mail.park.model.UserDao;
 import ru.mail.park.model.UserDaoImpl;
 import ru.mail.park.model.UserProfile;
+import ru.mail.park.monitoring.RankUpdateEvent;
 
 import java.util.List;
+import java.util.function.BiConsumer;
 
 @Service
 public class AccountServiceImpl implements AccountService {
     private final UserDao userDao;
+    private final UserLookup userLookup;
 
     @Autowired
     public AccountServiceImpl(DataBaseService dataBaseService) {
         userDao = new UserDaoImpl(dataBaseService.getJdbcTemplate());
+        userLookup = new UserLookup(userDao::getByLogin);
     }
 
     @Override
     public void addUser(String login, String password, String email) {
         userDao.create(new UserProfile(login, email, password));
+        userLookup.invalidate(login);
     }
 
     @Override
     public UserProfile getUserByLogin(String login) {
-        return userDao.getByLogin(login);
+        return userLookup.get(login);
+    }
+
+    @Override
+    public UserProfile getUserByEmail(String email) {
+        return userDao.getByEmail(email);
+    }
+
+    @Override
+    public void forEachLoginAndEmail(BiConsumer<String, String> consumer) {
+        userDao.forEachLoginAndEmail(consumer);
     }
 
     @Override
@@ -45,4 +60,19 @@ public class AccountServiceImpl implements AccountService {
             userDao.update(userProfile);
         }
     }
+
+    @Transactional
+    @Override
+    public void transferRank(UserProfile winner, UserProfile loser, int amount) {
+        final RankUpdateEvent event = new RankUpdateEvent();
+        event.begin();
+        userDao.addRank(winner.getLogin(), amount);
+        userDao.addRank(loser.getLogin(), -amount);
+        if (event.shouldCommit()) {
+            event.winner = winner.getLogin();
+            event.loser = loser.getLogin();
+            event.amount = amount;
+            event.commit();
+        }
+    }
 }
@@ -0,0 +1,122 @@
+package ru.mail.park.services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counting Bloom filter over strings with 4-bit counters, safe for concurrent use.
+ * {@link #mightContain} never misses an added key but may report one that was never added.
+ * Counters stick once they reach 15, so a key removed after that may still be reported.
+ */
+public class CountingBloomFilter {
+    private static final int COUNTER_BITS = 4;
+    private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private final AtomicLongArray words;
+    private final long counters;
+    private final int hashes;
+
+    /**
+     * Sized for the expected number of keys at the given false positive rate.
+     */
+    public CountingBloomFilter(long expectedKeys, double falsePositiveRate) {
+        final long keys = Math.max(1, expectedKeys);
+        final double log2 = Math.log(2);
+        final long wanted = (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (log2 * log2));
+        final long maxCounters = (long) Integer.MAX_VALUE * COUNTERS_PER_WORD;
+        counters = Math.min(maxCounters, Math.max(COUNTERS_PER_WORD, wanted));
+        hashes = Math.max(1, (int) Math.round((double) counters / keys * log2));
+        words = new AtomicLongArray((int) ((counters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD));
+    }
+
+    public void add(String key) {
+        final long hash = hash(key);
+        final long step = step(hash);
+        for (int i = 0; i < hashes; i++) {
+            increment(index(hash, step, i));
+        }
+    }
+
+    /**
+     * Only for keys that were added, removing anything else corrupts the filter.
+     */
+    public void remove(String key) {
+        final long hash = hash(key);
+        final long step = step(hash);
+        for (int i = 0; i < hashes; i++) {
+            decrement(index(hash, step, i));
+        }
+    }
+
+    public boolean mightContain(String key) {
+        final long hash = hash(key);
+        final long step = step(hash);
+        for (int i = 0; i < hashes; i++) {
+            if (counter(index(hash, step, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(long hash, long step, int i) {
+        return Long.remainderUnsigned(hash + i * step, counters);
+    }
+
+    private long counter(long index) {
+        return words.get((int) (index / COUNTERS_PER_WORD)) >>> shift(index) & COUNTER_MASK;
+    }
+
+    private void increment(long index) {
+        final int word = (int) (index / COUNTERS_PER_WORD);
+        final int shift = shift(index);
+        while (true) {
+            final long current = words.get(word);
+            if ((current >>> shift & COUNTER_MASK) == COUNTER_MASK
+                    || words.compareAndSet(word, current, current + (1L << shift))) {
+                return;
+            }
+        }
+    }
+
+    private void decrement(long index) {
+        final int word = (int) (index / COUNTERS_PER_WORD);
+        final int shift = shift(index);
+        while (true) {
+            final long current = words.get(word);
+            final long value = current >>> shift & COUNTER_MASK;
+            if (value == 0 || value == COUNTER_MASK
+                    || words.compareAndSet(word, current, current - (1L << shift))) {
+                return;
+            }
+        }
+    }
+
+    private static int shift(long index) {
+        return (int) (index % COUNTERS_PER_WORD) * COUNTER_BITS;
+    }
+
+    private static long hash(String key) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Second hash for double hashing.
+     */
+    private static long step(long hash) {
+        return mix(hash ^ GOLDEN_GAMMA) | 1;
+    }
+
+    private static long mix(long value) {
+        long mixed = (value ^ value >>> 33) * 0xff51afd7ed558ccdL;
+        mixed = (mixed ^ mixed >>> 33) * 0xc4ceb9fe1a85ec53L;
+        return mixed ^ mixed >>> 33;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.mail.park.services;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class HashingMetrics implements PublicMetrics {
+    private static final LongAdder QUEUE_DEPTH = new LongAdder();
+    private static final LongAdder COMPLETED = new LongAdder();
+    private static final LongAdder REJECTED = new LongAdder();
+    private static final LongAdder WAIT_NANOS = new LongAdder();
+    private static final LongAdder HASH_NANOS = new LongAdder();
+    private static final LongAccumulator MAX_HASH_NANOS = new LongAccumulator(Long::max, 0);
+
+    static void queued() {
+        QUEUE_DEPTH.increment();
+    }
+
+    static void started(long waitNanos) {
+        QUEUE_DEPTH.decrement();
+        WAIT_NANOS.add(waitNanos);
+    }
+
+    static void finished(long hashNanos) {
+        COMPLETED.increment();
+        HASH_NANOS.add(hashNanos);
+        MAX_HASH_NANOS.accumulate(hashNanos);
+    }
+
+    static void rejected() {
+        QUEUE_DEPTH.decrement();
+        REJECTED.increment();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final long completed = COMPLETED.sum();
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("hashing.queue.depth", QUEUE_DEPTH.sum()));
+        metrics.add(new Metric<>("hashing.completed", completed));
+        metrics.add(new Metric<>("hashing.rejected", REJECTED.sum()));
+        metrics.add(new Metric<>("hashing.wait.mean-ms", mean(WAIT_NANOS.sum(), completed)));
+        metrics.add(new Metric<>("hashing.latency.mean-ms", mean(HASH_NANOS.sum(), completed)));
+        metrics.add(new Metric<>("hashing.latency.max-ms", TimeUnit.NANOSECONDS.toMillis(MAX_HASH_NANOS.get())));
+        return metrics;
+    }
+
+    private static double mean(long nanos, long count) {
+        return count == 0 ? 0 : nanos / 1e6 / count;
+    }
+}
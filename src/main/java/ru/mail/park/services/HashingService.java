@@ -0,0 +1,101 @@
+package ru.mail.park.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.mail.park.monitoring.PasswordHashEvent;
+import ru.mail.park.services.config.SecuritySettings;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Password hashing off the request threads. Hashes run on {@code security.hash-threads} threads
+ * and at most {@code security.hash-queue-capacity} more wait for one; beyond that the returned future
+ * fails with {@link RejectedExecutionException} right away, so a login storm is shed instead of queued.
+ */
+@Service
+public class HashingService {
+    private final SecurityService securityService;
+    private final AtomicInteger threads = new AtomicInteger();
+    private ExecutorService executor;
+
+    @Autowired
+    public HashingService(SecurityService securityService) {
+        this.securityService = securityService;
+    }
+
+    /**
+     * Started once the context is refreshed: the settings are static and may not be bound yet
+     * when this service is created.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        final int poolSize = SecuritySettings.getHashThreads();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(SecuritySettings.getHashQueueCapacity()), runnable -> {
+                    final Thread thread = new Thread(runnable, "hashing-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public CompletableFuture<String> encode(String password) {
+        return submit("encode", () -> securityService.encode(password));
+    }
+
+    public CompletableFuture<Boolean> matches(String password, String hash) {
+        return submit("matches", () -> securityService.matches(password, hash));
+    }
+
+    private <T> CompletableFuture<T> submit(String operation, Supplier<T> hashing) {
+        final long queuedAt = System.nanoTime();
+        final Supplier<T> measured = () -> {
+            final long startedAt = System.nanoTime();
+            HashingMetrics.started(startedAt - queuedAt);
+            final PasswordHashEvent event = new PasswordHashEvent();
+            event.begin();
+            try {
+                return hashing.get();
+            } finally {
+                HashingMetrics.finished(System.nanoTime() - startedAt);
+                if (event.shouldCommit()) {
+                    event.operation = operation;
+                    event.queued = startedAt - queuedAt;
+                    event.commit();
+                }
+            }
+        };
+        HashingMetrics.queued();
+        final ExecutorService current = executor;
+        if (current == null) {
+            return CompletableFuture.completedFuture(measured.get());
+        }
+        try {
+            return CompletableFuture.supplyAsync(measured, current);
+        } catch (RejectedExecutionException e) {
+            HashingMetrics.rejected();
+            final CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
+    }
+}
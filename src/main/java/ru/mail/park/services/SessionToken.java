@@ -0,0 +1,48 @@
+package ru.mail.park.services;
+
+import ru.mail.park.model.UserProfile;
+
+/**
+ * Verified claims of a session token.
+ */
+public class SessionToken {
+    public static final String ATTRIBUTE = "sessionToken";
+    private final int userId;
+    private final String login;
+    private final int rank;
+    private final long expiresAt;
+
+    public SessionToken(int userId, String login, int rank, long expiresAt) {
+        this.userId = userId;
+        this.login = login;
+        this.rank = rank;
+        this.expiresAt = expiresAt;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    /**
+     * Rank of the user when the token was issued. Rank changes are stored as deltas,
+     * so a stale rank here never overwrites a newer one.
+     */
+    public int getRank() {
+        return rank;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * The user as far as the token tells, without email or password.
+     */
+    public UserProfile toUserProfile() {
+        return new UserProfile(userId, login, "", "", rank);
+    }
+}
@@ -0,0 +1,129 @@
+package ru.mail.park.services;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.mail.park.model.UserProfile;
+import ru.mail.park.services.config.SecuritySettings;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Stateless session tokens: the user id, login and rank with an expiry time, signed with HMAC-SHA256.
+ * Any node sharing {@code security.token-secret} accepts them without a session store or a database query.
+ * Without a secret a random one is generated, so tokens are only valid on this node until it restarts.
+ */
+@Service
+public class SessionTokenService {
+    private static final String BEARER = "Bearer ";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int RANDOM_SECRET_BYTES = 32;
+    private static final int CLAIMS_BYTES = Long.BYTES + Integer.BYTES + Integer.BYTES;
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    private final Base64.Decoder decoder = Base64.getUrlDecoder();
+    private volatile ThreadLocal<Mac> macs;
+
+    /**
+     * Started once the context is refreshed: the settings are static and may not be bound yet
+     * when this service is created.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public synchronized void start() {
+        if (macs != null) {
+            return;
+        }
+        final String secret = SecuritySettings.getTokenSecret();
+        final byte[] key;
+        if (secret == null || secret.isEmpty()) {
+            logger.warn("security.token-secret is not set, session tokens will not survive a restart");
+            key = new byte[RANDOM_SECRET_BYTES];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        final SecretKeySpec keySpec = new SecretKeySpec(key, ALGORITHM);
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                final Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(keySpec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("failed to set up " + ALGORITHM, e);
+            }
+        });
+    }
+
+    public String issue(UserProfile user) {
+        final byte[] login = user.getLogin().getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer claims = ByteBuffer.allocate(CLAIMS_BYTES + login.length);
+        claims.putLong(System.currentTimeMillis() + SecuritySettings.getTokenTtlMs());
+        claims.putInt(user.getId());
+        claims.putInt(user.getRank());
+        claims.put(login);
+        final byte[] payload = claims.array();
+        return encoder.encodeToString(payload) + '.' + encoder.encodeToString(sign(payload));
+    }
+
+    /**
+     * @return the claims of the token, or null if it is malformed, forged or expired
+     */
+    @Nullable
+    public SessionToken verify(@Nullable String token) {
+        if (token == null) {
+            return null;
+        }
+        final int separator = token.indexOf('.');
+        if (separator < 0) {
+            return null;
+        }
+        try {
+            final byte[] payload = decoder.decode(token.substring(0, separator));
+            final byte[] signature = decoder.decode(token.substring(separator + 1));
+            if (payload.length < CLAIMS_BYTES || !MessageDigest.isEqual(sign(payload), signature)) {
+                return null;
+            }
+            final ByteBuffer claims = ByteBuffer.wrap(payload);
+            final long expiresAt = claims.getLong();
+            if (expiresAt < System.currentTimeMillis()) {
+                return null;
+            }
+            final int userId = claims.getInt();
+            final int rank = claims.getInt();
+            final String login = new String(payload, CLAIMS_BYTES, payload.length - CLAIMS_BYTES,
+                    StandardCharsets.UTF_8);
+            return new SessionToken(userId, login, rank, expiresAt);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the token of a bearer {@code Authorization} header, or null if the header is missing or another scheme
+     */
+    @Nullable
+    public static String fromBearer(@Nullable String authorization) {
+        if (authorization == null || !authorization.startsWith(BEARER)) {
+            return null;
+        }
+        return authorization.substring(BEARER.length());
+    }
+
+    private byte[] sign(byte[] payload) {
+        if (macs == null) {
+            start();
+        }
+        return macs.get().doFinal(payload);
+    }
+}
@@ -0,0 +1,115 @@
+package ru.mail.park.services;
+
+import ru.mail.park.model.UserProfile;
+import ru.mail.park.services.config.AccountSettings;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Lookups of users by login that share work: concurrent lookups of one login wait for a single query,
+ * and logins found missing are remembered for {@code account.unknown-login-ttl-ms}, for at most
+ * {@code account.unknown-login-capacity} logins.
+ * Logins are keyed as {@link UserNameFilter} folds them, since the database finds them case- and accent-insensitively.
+ * Profiles are mutable, so every caller but the one that ran the query gets its own copy.
+ */
+public class UserLookup {
+    private final Function<String, UserProfile> loader;
+    private final Map<String, CompletableFuture<UserProfile>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Long> unknownUntil = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public UserLookup(Function<String, UserProfile> loader) {
+        this.loader = loader;
+    }
+
+    public UserProfile get(String login) {
+        final String key = UserNameFilter.fold(login);
+        final Long until = unknownUntil.get(key);
+        if (until != null) {
+            if (until > System.currentTimeMillis()) {
+                UserLookupMetrics.unknownHit();
+                return null;
+            }
+            unknownUntil.remove(key, until);
+        }
+        final CompletableFuture<UserProfile> mine = new CompletableFuture<>();
+        final CompletableFuture<UserProfile> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            UserLookupMetrics.shared();
+            return copy(join(running));
+        }
+        try {
+            UserLookupMetrics.queried();
+            final long invalidationsBefore = invalidations.get();
+            final UserProfile user = loader.apply(login);
+            if (user == null) {
+                rememberUnknown(key, invalidationsBefore);
+            }
+            mine.complete(user);
+            return user;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Forgets that the login was missing, once it is registered.
+     * A lookup already running when this is called does not remember its miss.
+     */
+    public void invalidate(String login) {
+        invalidations.incrementAndGet();
+        unknownUntil.remove(UserNameFilter.fold(login));
+    }
+
+    /**
+     * Remembers the miss unless a login was registered since the query started, checked again once it is stored,
+     * so that a registration landing in between does not stay hidden for the whole TTL.
+     */
+    private void rememberUnknown(String key, long invalidationsBefore) {
+        final long ttl = AccountSettings.getUnknownLoginTtlMs();
+        if (ttl <= 0) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        if (unknownUntil.size() >= AccountSettings.getUnknownLoginCapacity()) {
+            unknownUntil.values().removeIf(until -> until <= now);
+            if (unknownUntil.size() >= AccountSettings.getUnknownLoginCapacity()) {
+                return;
+            }
+        }
+        if (invalidations.get() != invalidationsBefore) {
+            return;
+        }
+        final Long until = now + ttl;
+        unknownUntil.put(key, until);
+        if (invalidations.get() != invalidationsBefore) {
+            unknownUntil.remove(key, until);
+        }
+    }
+
+    private static UserProfile join(CompletableFuture<UserProfile> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static UserProfile copy(UserProfile user) {
+        if (user == null) {
+            return null;
+        }
+        return new UserProfile(user.getId(), user.getLogin(), user.getEmail(), user.getPassword(), user.getRank());
+    }
+}
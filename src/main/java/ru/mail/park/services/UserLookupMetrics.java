@@ -0,0 +1,38 @@
+package ru.mail.park.services;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class UserLookupMetrics implements PublicMetrics {
+    private static final LongAdder QUERIED = new LongAdder();
+    private static final LongAdder SHARED = new LongAdder();
+    private static final LongAdder UNKNOWN_HITS = new LongAdder();
+
+    static void queried() {
+        QUERIED.increment();
+    }
+
+    static void shared() {
+        SHARED.increment();
+    }
+
+    static void unknownHit() {
+        UNKNOWN_HITS.increment();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("users.lookup.queried", QUERIED.sum()));
+        metrics.add(new Metric<>("users.lookup.shared", SHARED.sum()));
+        metrics.add(new Metric<>("users.lookup.unknown-hits", UNKNOWN_HITS.sum()));
+        return metrics;
+    }
+}
@@ -0,0 +1,104 @@
+package ru.mail.park.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import ru.mail.park.services.config.AccountSettings;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Counting Bloom filters over taken logins and emails, loaded at startup and fed by registrations.
+ * A name the filter has never seen is free without asking the database; any other name is looked up.
+ * The unique keys of the database stay the final word: users registered through other nodes are only
+ * seen here once a registration collides with them.
+ * Names are folded like the case- and accent-insensitive collation of the database, so that
+ * the filter never misses a name the database would consider taken.
+ */
+@Service
+public class UserNameFilter {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern TRAILING_SPACES = Pattern.compile(" +$");
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final AccountService accountService;
+    private volatile CountingBloomFilter logins;
+    private volatile CountingBloomFilter emails;
+
+    @Autowired
+    public UserNameFilter(AccountService accountService) {
+        this.accountService = accountService;
+    }
+
+    /**
+     * Loaded once the context is refreshed: the settings are static and may not be bound yet
+     * when this service is created.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public synchronized void start() {
+        if (logins == null) {
+            load();
+        }
+    }
+
+    /**
+     * Rebuilds the filters from the database. Until it succeeds every name is looked up.
+     */
+    public synchronized void load() {
+        final CountingBloomFilter loadedLogins = newFilter();
+        final CountingBloomFilter loadedEmails = newFilter();
+        try {
+            accountService.forEachLoginAndEmail((login, email) -> {
+                loadedLogins.add(fold(login));
+                loadedEmails.add(fold(email));
+            });
+        } catch (DataAccessException e) {
+            logger.warn("failed to load user names, checking every name against the database", e);
+            logins = null;
+            emails = null;
+            return;
+        }
+        logins = loadedLogins;
+        emails = loadedEmails;
+    }
+
+    public void add(String login, String email) {
+        final CountingBloomFilter currentLogins = logins;
+        final CountingBloomFilter currentEmails = emails;
+        if (currentLogins != null && currentEmails != null) {
+            currentLogins.add(fold(login));
+            currentEmails.add(fold(email));
+        }
+    }
+
+    public boolean isLoginAvailable(String login) {
+        final CountingBloomFilter current = logins;
+        if (current != null && !current.mightContain(fold(login))) {
+            return true;
+        }
+        return accountService.getUserByLogin(login) == null;
+    }
+
+    public boolean isEmailAvailable(String email) {
+        final CountingBloomFilter current = emails;
+        if (current != null && !current.mightContain(fold(email))) {
+            return true;
+        }
+        return accountService.getUserByEmail(email) == null;
+    }
+
+    private static CountingBloomFilter newFilter() {
+        return new CountingBloomFilter(AccountSettings.getFilterExpectedUsers(),
+                AccountSettings.getFilterFalsePositiveRate());
+    }
+
+    static String fold(String name) {
+        final String unaccented = MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        return TRAILING_SPACES.matcher(unaccented.toLowerCase(Locale.ROOT)).replaceAll("");
+    }
+}
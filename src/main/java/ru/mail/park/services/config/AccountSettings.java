@@ -0,0 +1,45 @@
+package ru.mail.park.services.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties(prefix = "account")
+@Component
+public class AccountSettings {
+    private static long filterExpectedUsers;
+    private static double filterFalsePositiveRate;
+    private static long unknownLoginTtlMs;
+    private static int unknownLoginCapacity;
+
+    public static long getFilterExpectedUsers() {
+        return filterExpectedUsers;
+    }
+
+    public void setFilterExpectedUsers(long filterExpectedUsers) {
+        AccountSettings.filterExpectedUsers = filterExpectedUsers;
+    }
+
+    public static double getFilterFalsePositiveRate() {
+        return filterFalsePositiveRate;
+    }
+
+    public void setFilterFalsePositiveRate(double filterFalsePositiveRate) {
+        AccountSettings.filterFalsePositiveRate = filterFalsePositiveRate;
+    }
+
+    public static long getUnknownLoginTtlMs() {
+        return unknownLoginTtlMs;
+    }
+
+    public void setUnknownLoginTtlMs(long unknownLoginTtlMs) {
+        AccountSettings.unknownLoginTtlMs = unknownLoginTtlMs;
+    }
+
+    public static int getUnknownLoginCapacity() {
+        return unknownLoginCapacity;
+    }
+
+    public void setUnknownLoginCapacity(int unknownLoginCapacity) {
+        AccountSettings.unknownLoginCapacity = unknownLoginCapacity;
+    }
+}
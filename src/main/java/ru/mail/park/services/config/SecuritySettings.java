@@ -0,0 +1,54 @@
+package ru.mail.park.services.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties(prefix = "security")
+@Component
+public class SecuritySettings {
+    private static int hashThreads;
+    private static int hashQueueCapacity;
+    private static String tokenSecret;
+    private static long tokenTtlMs;
+    private static String adminToken;
+
+    public static int getHashThreads() {
+        return hashThreads;
+    }
+
+    public void setHashThreads(int hashThreads) {
+        SecuritySettings.hashThreads = hashThreads;
+    }
+
+    public static int getHashQueueCapacity() {
+        return hashQueueCapacity;
+    }
+
+    public void setHashQueueCapacity(int hashQueueCapacity) {
+        SecuritySettings.hashQueueCapacity = hashQueueCapacity;
+    }
+
+    public static String getTokenSecret() {
+        return tokenSecret;
+    }
+
+    public void setTokenSecret(String tokenSecret) {
+        SecuritySettings.tokenSecret = tokenSecret;
+    }
+
+    public static long getTokenTtlMs() {
+        return tokenTtlMs;
+    }
+
+    public void setTokenTtlMs(long tokenTtlMs) {
+        SecuritySettings.tokenTtlMs = tokenTtlMs;
+    }
+
+    public static String getAdminToken() {
+        return adminToken;
+    }
+
+    public void setAdminToken(String adminToken) {
+        SecuritySettings.adminToken = adminToken;
+    }
+}
@@ -0,0 +1,159 @@
+package ru.mail.park.websocket;
+
+import org.jetbrains.annotations.Nullable;
+import org.springframework.web.socket.WebSocketSession;
+import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.game.mechanics.GameSession;
+import ru.mail.park.game.mechanics.Player;
+import ru.mail.park.game.messaging.PlayerAction;
+import ru.mail.park.model.UserProfile;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-connection state of the game socket, kept in the websocket session attributes
+ * so that {@link GameSocketHandler} itself can be shared by all connections.
+ * Holds direct references to the player's game, so handling a move needs no map lookups.
+ */
+public class Connection {
+    public static final String ATTRIBUTE = Connection.class.getName();
+
+    private final UserProfile userProfile;
+    private final WebSocketSession webSocketSession;
+    private final OutboundQueue outboundQueue;
+    private final AtomicBoolean queued = new AtomicBoolean();
+    private final TokenBucket inbound;
+    private final PlayerAction inboundAction = new PlayerAction();
+    private volatile GameSession gameSession;
+    private volatile Player player;
+    private volatile GameSession watching;
+    private volatile long lastSeen = System.currentTimeMillis();
+    private volatile long queuedAt;
+    private volatile boolean closed;
+
+    public Connection(UserProfile userProfile, WebSocketSession webSocketSession) {
+        this.userProfile = userProfile;
+        this.webSocketSession = webSocketSession;
+        this.outboundQueue = new OutboundQueue(webSocketSession);
+        this.inbound = GameSettings.getActionRate() > 0
+                ? new TokenBucket(GameSettings.getActionRate(), GameSettings.getActionBurst()) : null;
+    }
+
+    public UserProfile getUserProfile() {
+        return userProfile;
+    }
+
+    public WebSocketSession getWebSocketSession() {
+        return webSocketSession;
+    }
+
+    public OutboundQueue getOutboundQueue() {
+        return outboundQueue;
+    }
+
+    /**
+     * @return false if the player is already waiting for an opponent
+     */
+    public boolean enqueue() {
+        if (!queued.compareAndSet(false, true)) {
+            return false;
+        }
+        queuedAt = System.nanoTime();
+        return true;
+    }
+
+    public void dequeue() {
+        queued.set(false);
+    }
+
+    public boolean isQueued() {
+        return queued.get();
+    }
+
+    /**
+     * @return {@link System#nanoTime()} of the last time the player started waiting for a game
+     */
+    public long getQueuedAt() {
+        return queuedAt;
+    }
+
+    /**
+     * @return the game the player is in, or null if the last game is over
+     */
+    @Nullable
+    public GameSession getGameSession() {
+        final GameSession current = gameSession;
+        return current == null || current.isOver() ? null : current;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Also points the player at this connection, so their snaps are sent here without looking the user up,
+     * and stops spectating: a player gets only the snaps of their own game.
+     */
+    public void join(GameSession gameSession, Player player) {
+        player.setConnection(this);
+        this.player = player;
+        this.gameSession = gameSession;
+        final GameSession watched = watching;
+        if (watched != null) {
+            watched.getSpectators().remove(this);
+            watching = null;
+        }
+    }
+
+    /**
+     * @return the game the connection is spectating, or null if none or it is over
+     */
+    @Nullable
+    public GameSession getWatching() {
+        final GameSession current = watching;
+        return current == null || current.isOver() ? null : current;
+    }
+
+    public void watch(@Nullable GameSession session) {
+        watching = session;
+    }
+
+    /**
+     * @return when anything was last received from the client, in milliseconds
+     */
+    public long getLastSeen() {
+        return lastSeen;
+    }
+
+    public void touch() {
+        lastSeen = System.currentTimeMillis();
+    }
+
+    /**
+     * @return the action every incoming move is decoded into, valid only while that move is handled.
+     * Messages of one connection are handled one at a time, so it is never shared.
+     */
+    public PlayerAction getInboundAction() {
+        return inboundAction;
+    }
+
+    /**
+     * @return false if the client sends messages faster than {@code game.action-rate} allows
+     */
+    public boolean admitMessage() {
+        return inbound == null || inbound.tryAcquire();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void close() {
+        closed = true;
+    }
+
+    @Nullable
+    public static Connection of(WebSocketSession session) {
+        return (Connection) session.getAttributes().get(ATTRIBUTE);
+    }
+}
@@ -1,43 +1,76 @@
 package ru.mail.park.websocket;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 import ru.mail.park.game.GameMechService;
+import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.logging.EventLog;
 import ru.mail.park.model.UserProfile;
 import ru.mail.park.services.AccountService;
+import ru.mail.park.services.SessionToken;
+import ru.mail.park.websocket.heartbeat.HeartbeatService;
 
 import javax.naming.AuthenticationException;
-import java.io.IOException;
 
+/**
+ * Shared by all game connections, so it must stay stateless: everything about a connection lives
+ * in its {@link Connection} attribute.
+ */
+@Component
 public class GameSocketHandler extends TextWebSocketHandler {
+    private static final int LOGGED_FRAME_LENGTH = 200;
+    private static final EventLog REJECTED = new EventLog(GameSocketHandler.class, "message.rejected",
+            "login={} reason={} cause={} frame={}");
+    private static final EventLog LIMIT_DISCONNECT = new EventLog(GameSocketHandler.class,
+            "inbound.limit-disconnect", "login={}");
     private final Logger logger = LoggerFactory.getLogger(getClass());
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private AccountService accountService;
-    private RemotePointService remotePointService;
-    private MessageHandlerService messageHandlerService;
-    private GameMechService gameMechService;
+    private final AccountService accountService;
+    private final RemotePointService remotePointService;
+    private final MessageHandlerService messageHandlerService;
+    private final GameMechService gameMechService;
+    private final HeartbeatService heartbeatService;
 
+    @Autowired
     public GameSocketHandler(AccountService accountService, RemotePointService remotePointService,
-                             MessageHandlerService messageHandlerService, GameMechService gameMechService) {
+                             MessageHandlerService messageHandlerService, GameMechService gameMechService,
+                             HeartbeatService heartbeatService) {
         this.accountService = accountService;
         this.remotePointService = remotePointService;
         this.messageHandlerService = messageHandlerService;
         this.gameMechService = gameMechService;
+        this.heartbeatService = heartbeatService;
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws AuthenticationException {
-        remotePointService.registerUser(getUserFromSession(session), session);
+        final Connection connection = new Connection(getUserFromSession(session), session);
+        session.getAttributes().put(Connection.ATTRIBUTE, connection);
+        remotePointService.register(connection);
+        heartbeatService.watch(connection);
+        gameMechService.handleConnect(connection);
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws AuthenticationException {
-        handleMessage(getUserFromSession(session), message);
+        final Connection connection = getConnection(session);
+        connection.touch();
+        if (!connection.admitMessage()) {
+            rejectMessage(connection);
+            return;
+        }
+        handleMessage(connection, message);
+    }
+
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) throws AuthenticationException {
+        getConnection(session).touch();
     }
 
     @Override
@@ -46,10 +79,14 @@ public class GameSocketHandler extends TextWebSocketHandler {
     }
 
     @Override
-    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws AuthenticationException {
-        final UserProfile userProfile = getUserFromSession(session);
-        gameMechService.handleDisconnect(userProfile);
-        remotePointService.removeUser(userProfile);
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) {
+        final Connection connection = Connection.of(session);
+        if (connection == null) {
+            return;
+        }
+        connection.close();
+        gameMechService.handleDisconnect(connection);
+        remotePointService.unregister(connection);
     }
 
     @Override
@@ -57,7 +94,23 @@ public class GameSocketHandler extends TextWebSocketHandler {
         return false;
     }
 
+    private Connection getConnection(WebSocketSession session) throws AuthenticationException {
+        final Connection connection = Connection.of(session);
+        if (connection == null) {
+            throw new AuthenticationException("Only authenticated users are allowed to play the game");
+        }
+        return connection;
+    }
+
+    /**
+     * A verified session token is trusted as is, only connections authenticated by the HTTP session
+     * look the user up.
+     */
     private UserProfile getUserFromSession(WebSocketSession session) throws AuthenticationException {
+        final Object sessionToken = session.getAttributes().get(SessionToken.ATTRIBUTE);
+        if (sessionToken != null) {
+            return ((SessionToken) sessionToken).toUserProfile();
+        }
         final Object sessionLogin = session.getAttributes().get("login");
         if (sessionLogin == null) {
             throw new AuthenticationException("Only authenticated users are allowed to play the game");
@@ -69,20 +122,28 @@ public class GameSocketHandler extends TextWebSocketHandler {
         return userProfile;
     }
 
-    @SuppressWarnings("OverlyBroadCatchBlock")
-    private void handleMessage(UserProfile userProfile, TextMessage text) {
-        final Message message;
-        try {
-            message = objectMapper.readValue(text.getPayload(), Message.class);
-        } catch (IOException e) {
-            logger.error("wrong json format ", e);
+    /**
+     * Checked before anything is decoded, so a flooding client costs no more than counting its frames.
+     */
+    private void rejectMessage(Connection connection) {
+        if (GameSettings.getActionLimitPolicy() != RateLimitPolicy.DISCONNECT) {
+            InboundLimitMetrics.dropped();
             return;
         }
+        final OutboundQueue outboundQueue = connection.getOutboundQueue();
+        if (outboundQueue.isOpen()) {
+            InboundLimitMetrics.disconnect();
+            LIMIT_DISCONNECT.warn(connection.getUserProfile().getLogin());
+            outboundQueue.close(CloseStatus.POLICY_VIOLATION);
+        }
+    }
+
+    private void handleMessage(Connection connection, TextMessage text) {
         try {
-            messageHandlerService.handle(message, userProfile);
+            messageHandlerService.handle(text.getPayload(), connection);
         } catch (HandleException e) {
-            logger.error("Can't handle message of type " + message.getType() + " with content: " + message.getContent(),
-                    e);
+            REJECTED.warn(connection.getUserProfile().getLogin(), e.getMessage(), e.getCause(),
+                    EventLog.abbreviate(text.getPayload(), LOGGED_FRAME_LENGTH));
         }
     }
 }
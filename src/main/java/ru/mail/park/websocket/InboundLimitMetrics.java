@@ -0,0 +1,32 @@
+package ru.mail.park.websocket;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class InboundLimitMetrics implements PublicMetrics {
+    private static final LongAdder DROPPED = new LongAdder();
+    private static final LongAdder DISCONNECTS = new LongAdder();
+
+    static void dropped() {
+        DROPPED.increment();
+    }
+
+    static void disconnect() {
+        DISCONNECTS.increment();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("websocket.inbound.limited", DROPPED.sum()));
+        metrics.add(new Metric<>("websocket.inbound.limit-disconnects", DISCONNECTS.sum()));
+        return metrics;
+    }
+}
@@ -1,27 +1,25 @@
 package ru.mail.park.websocket;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import ru.mail.park.model.UserProfile;
 
 import java.io.IOException;
 
 public abstract class MessageHandler<T> {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     private final Class<T> clazz;
 
     public MessageHandler(Class<T> clazz) {
         this.clazz = clazz;
     }
 
-    @SuppressWarnings("OverlyBroadCatchBlock")
-    public void handleMessage(Message message, UserProfile userProfile) throws HandleException {
-        try {
-            final Object data = new ObjectMapper().readValue(message.getContent(), clazz);
-            handle(clazz.cast(data), userProfile);
-        } catch (IOException | ClassCastException e) {
-            throw new HandleException("Can't read incoming message of type " + message.getType() +
-                    " with content: " + message.getContent(), e);
-        }
+    /**
+     * Reads the content of a message, the parser is on its first token.
+     * Handlers of frequent messages override this to fill a reusable instance without data binding.
+     */
+    public T read(JsonParser parser, Connection connection) throws IOException {
+        return OBJECT_MAPPER.readValue(parser, clazz);
     }
 
-    public abstract void handle(T message, UserProfile userProfile) throws HandleException;
+    public abstract void handle(T message, Connection connection) throws HandleException;
 }
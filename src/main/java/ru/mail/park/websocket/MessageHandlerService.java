@@ -1,34 +1,160 @@
 package ru.mail.park.websocket;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.jetbrains.annotations.Nullable;
 import org.springframework.stereotype.Service;
-import ru.mail.park.model.UserProfile;
+import ru.mail.park.logging.EventLog;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Dispatches incoming messages to the handler registered for their type.
+ * Frames are decoded in one streaming pass: the content is read by the handler straight from the frame,
+ * and content sent as an escaped JSON string is parsed in place from the parser's buffer.
+ * The message is handled only once the whole frame is read, and a frame with a repeated type or content
+ * is refused, so one frame is never handled as several messages.
+ */
 @Service
 public class MessageHandlerService {
-    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private static final String TYPE_FIELD = "type";
+    private static final String CONTENT_FIELD = "content";
+    private static final EventLog HANDLED = new EventLog(MessageHandlerService.class, "message.handled",
+            "type={} login={}");
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonFactory jsonFactory = objectMapper.getFactory();
     final Map<Class<?>, MessageHandler<?>> handlerMap = new HashMap<>();
+    private volatile Registration[] registrations = new Registration[0];
 
-    public void handle(Message message, UserProfile userProfile) throws HandleException {
-        final Class clazz;
-        try {
-            clazz = Class.forName("ru.mail.park.game.messaging." + message.getType());
-        } catch (ClassNotFoundException e) {
-            throw new HandleException("Can't handle message of " + message.getType() + " type", e);
+    /**
+     * Decodes a whole frame of the form {@code {"type": ..., "content": ...}} and handles it.
+     */
+    public void handle(String frame, Connection connection) throws HandleException {
+        try (JsonParser parser = jsonFactory.createParser(frame)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new HandleException("message is not a json object");
+            }
+            Registration registration = null;
+            TokenBuffer earlyContent = null;
+            Object message = null;
+            boolean hasContent = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                parser.nextToken();
+                if (TYPE_FIELD.equals(field)) {
+                    if (registration != null) {
+                        throw new HandleException("message with more than one type");
+                    }
+                    registration = findRegistration(parser);
+                    if (registration == null) {
+                        throw new HandleException("no handler for the message type");
+                    }
+                } else if (CONTENT_FIELD.equals(field)) {
+                    if (hasContent) {
+                        throw new HandleException("message with more than one content");
+                    }
+                    hasContent = true;
+                    if (registration != null) {
+                        message = read(registration.handler, parser, connection);
+                    } else {
+                        earlyContent = new TokenBuffer(parser);
+                        earlyContent.copyCurrentStructure(parser);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (parser.getCurrentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                throw new HandleException("message is not a single json object");
+            }
+            if (registration == null || !hasContent) {
+                throw new HandleException("message without type or content");
+            }
+            if (earlyContent != null) {
+                try (JsonParser buffered = earlyContent.asParser(parser.getCodec())) {
+                    buffered.nextToken();
+                    message = read(registration.handler, buffered, connection);
+                }
+            }
+            deliver(registration.handler, message, connection);
+            HANDLED.debug(registration.type, connection.getUserProfile().getLogin());
+        } catch (IOException e) {
+            throw new HandleException("Can't read incoming message", e);
         }
-        final MessageHandler<?> messageHandler = handlerMap.get(clazz);
-        if (messageHandler == null) {
-            throw new HandleException("no handler for message of " + message.getType() + " type");
-        }
-        messageHandler.handleMessage(message, userProfile);
-        logger.debug("message handled: type =[" + message.getType() + "], content=[" + message.getContent() + ']');
     }
 
     public <T> void registerHandler(Class<T> clazz, MessageHandler<T> handler) {
-        handlerMap.put(clazz, handler);
+        synchronized (this) {
+            handlerMap.put(clazz, handler);
+            registrations = handlerMap.entrySet().stream()
+                    .map(entry -> new Registration(entry.getKey().getSimpleName(), entry.getValue()))
+                    .toArray(Registration[]::new);
+        }
+    }
+
+    private Object read(MessageHandler<?> handler, JsonParser parser, Connection connection) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_STRING) {
+            try (JsonParser content = jsonFactory.createParser(parser.getTextCharacters(), parser.getTextOffset(),
+                    parser.getTextLength())) {
+                content.nextToken();
+                return handler.read(content, connection);
+            }
+        }
+        return handler.read(parser, connection);
+    }
+
+    /**
+     * The message was read by the same handler, so it is of the handler's type.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void deliver(MessageHandler<T> handler, Object message, Connection connection)
+            throws HandleException {
+        handler.handle((T) message, connection);
+    }
+
+    /**
+     * Matches the type against the registered handlers without making a string of it.
+     */
+    @Nullable
+    private Registration findRegistration(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.VALUE_STRING) {
+            return null;
+        }
+        final char[] text = parser.getTextCharacters();
+        final int offset = parser.getTextOffset();
+        final int length = parser.getTextLength();
+        for (Registration registration : registrations) {
+            if (registration.matches(text, offset, length)) {
+                return registration;
+            }
+        }
+        return null;
+    }
+
+    private static final class Registration {
+        private final String type;
+        private final MessageHandler<?> handler;
+
+        private Registration(String type, MessageHandler<?> handler) {
+            this.type = type;
+            this.handler = handler;
+        }
+
+        private boolean matches(char[] text, int offset, int length) {
+            if (type.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (type.charAt(i) != text[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
 }
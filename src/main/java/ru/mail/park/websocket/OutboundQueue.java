@@ -0,0 +1,199 @@
+package ru.mail.park.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import ru.mail.park.logging.EventLog;
+import ru.mail.park.websocket.config.WebSocketSettings;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Outgoing messages of one connection. Messages are written one at a time with Jetty async sends,
+ * so callers only enqueue and a slow client never blocks the game thread.
+ * At most one droppable message is pending: a newer one replaces it, so a client that can't keep up
+ * gets only the latest state.
+ */
+public class OutboundQueue implements WriteCallback {
+    private static final EventLog OVERFLOW = new EventLog(OutboundQueue.class, "send-queue.overflow", "session={}");
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final int capacity = WebSocketSettings.getSendQueueCapacity();
+    private final SlowConsumerPolicy policy = WebSocketSettings.getSlowConsumerPolicy();
+    private final WebSocketSession webSocketSession;
+    private final Deque<Outbound> queue = new ArrayDeque<>();
+    private Outbound pendingDroppable;
+    private boolean writing;
+    private boolean closed;
+
+    public OutboundQueue(WebSocketSession webSocketSession) {
+        this.webSocketSession = webSocketSession;
+    }
+
+    public WebSocketSession getWebSocketSession() {
+        return webSocketSession;
+    }
+
+    public synchronized boolean isOpen() {
+        return !closed && webSocketSession.isOpen();
+    }
+
+    public synchronized int getDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @param droppable whether a newer droppable message supersedes this one, true for snaps that carry full state
+     */
+    public void send(String payload, boolean droppable) throws IOException {
+        final Outbound next;
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("session is closed");
+            }
+            if (droppable && pendingDroppable != null) {
+                queue.removeFirstOccurrence(pendingDroppable);
+                pendingDroppable = null;
+                SendQueueMetrics.conflated();
+                SendQueueMetrics.dequeued(1);
+            }
+            if (queue.size() >= capacity && !makeRoom()) {
+                SendQueueMetrics.overflowDisconnect();
+                OVERFLOW.warn(webSocketSession.getId());
+                discard();
+                next = new Outbound(null, false, CloseStatus.SESSION_NOT_RELIABLE);
+            } else {
+                final Outbound outbound = new Outbound(payload, droppable, null);
+                if (droppable) {
+                    pendingDroppable = outbound;
+                }
+                queue.add(outbound);
+                SendQueueMetrics.enqueued(queue.size());
+                next = startWriting();
+            }
+        }
+        write(next);
+    }
+
+    /**
+     * Closes the connection once the messages queued so far are written.
+     */
+    public void close(CloseStatus closeStatus) {
+        final Outbound next;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(new Outbound(null, false, closeStatus));
+            SendQueueMetrics.enqueued(queue.size());
+            next = startWriting();
+        }
+        write(next);
+    }
+
+    @Override
+    public void writeSuccess() {
+        SendQueueMetrics.sent();
+        final Outbound next;
+        synchronized (this) {
+            writing = false;
+            next = startWriting();
+        }
+        write(next);
+    }
+
+    @Override
+    public void writeFailed(Throwable throwable) {
+        SendQueueMetrics.failed();
+        logger.debug("failed to write to websocket {}", webSocketSession.getId(), throwable);
+        synchronized (this) {
+            writing = false;
+            discard();
+        }
+        closeSession(CloseStatus.SERVER_ERROR);
+    }
+
+    private boolean makeRoom() {
+        if (policy != SlowConsumerPolicy.DROP_STALE) {
+            return false;
+        }
+        int dropped = 0;
+        for (Iterator<Outbound> iterator = queue.iterator(); iterator.hasNext(); ) {
+            if (iterator.next().droppable) {
+                iterator.remove();
+                dropped++;
+            }
+        }
+        pendingDroppable = null;
+        SendQueueMetrics.dropped(dropped);
+        SendQueueMetrics.dequeued(dropped);
+        return queue.size() < capacity;
+    }
+
+    private void discard() {
+        closed = true;
+        pendingDroppable = null;
+        SendQueueMetrics.dequeued(queue.size());
+        queue.clear();
+    }
+
+    @Nullable
+    private Outbound startWriting() {
+        if (writing || queue.isEmpty()) {
+            return null;
+        }
+        writing = true;
+        SendQueueMetrics.dequeued(1);
+        final Outbound next = queue.poll();
+        if (next == pendingDroppable) {
+            pendingDroppable = null;
+        }
+        return next;
+    }
+
+    private void write(@Nullable Outbound outbound) {
+        if (outbound == null) {
+            return;
+        }
+        if (outbound.closeStatus != null) {
+            closeSession(outbound.closeStatus);
+            return;
+        }
+        SendQueueMetrics.written(outbound.payload.length());
+        try {
+            final Session nativeSession = ((NativeWebSocketSession) webSocketSession).getNativeSession(Session.class);
+            nativeSession.getRemote().sendString(outbound.payload, this);
+        } catch (RuntimeException e) {
+            writeFailed(e);
+        }
+    }
+
+    private void closeSession(CloseStatus closeStatus) {
+        if (webSocketSession.isOpen()) {
+            try {
+                webSocketSession.close(closeStatus);
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    private static final class Outbound {
+        private final String payload;
+        private final boolean droppable;
+        private final CloseStatus closeStatus;
+
+        private Outbound(String payload, boolean droppable, CloseStatus closeStatus) {
+            this.payload = payload;
+            this.droppable = droppable;
+            this.closeStatus = closeStatus;
+        }
+    }
+}
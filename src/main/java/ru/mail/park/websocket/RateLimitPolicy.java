@@ -0,0 +1,12 @@
+package ru.mail.park.websocket;
+
+public enum RateLimitPolicy {
+    /**
+     * Ignore messages over the limit, the client only loses them.
+     */
+    DROP,
+    /**
+     * Close the connection on the first message over the limit.
+     */
+    DISCONNECT
+}
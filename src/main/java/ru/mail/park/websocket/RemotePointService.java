@@ -2,56 +2,132 @@ package ru.mail.park.websocket;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.eclipse.jetty.websocket.api.WebSocketException;
+import org.jctools.maps.NonBlockingHashMapLong;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.CloseStatus;
-import org.springframework.web.socket.TextMessage;
-import org.springframework.web.socket.WebSocketSession;
 import ru.mail.park.model.UserProfile;
+import ru.mail.park.monitoring.MessageSendEvent;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Collection;
 
 @Service
 public class RemotePointService {
-    private Map<UserProfile, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private NonBlockingHashMapLong<Connection> connections = new NonBlockingHashMapLong<>();
     private ObjectMapper objectMapper = new ObjectMapper();
 
-    public void registerUser(UserProfile userProfile, WebSocketSession webSocketSession) {
-        sessions.put(userProfile, webSocketSession);
+    public void register(Connection connection) {
+        connections.put(connection.getUserProfile().getId(), connection);
     }
 
-    public boolean isConnected(UserProfile userProfile) {
-        return sessions.containsKey(userProfile) && sessions.get(userProfile).isOpen();
+    /**
+     * Forgets the connection unless the user has already reconnected.
+     */
+    public void unregister(Connection connection) {
+        connections.remove(connection.getUserProfile().getId(), connection);
+    }
+
+    /**
+     * @return whether this is the user's latest connection, not one replaced by a reconnect
+     */
+    public boolean isCurrent(Connection connection) {
+        return connections.get(connection.getUserProfile().getId()) == connection;
     }
 
-    public void removeUser(UserProfile userProfile) {
-        sessions.remove(userProfile);
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    public boolean isConnected(UserProfile userProfile) {
+        final Connection connection = connections.get(userProfile.getId());
+        return connection != null && connection.getOutboundQueue().isOpen();
     }
 
     public void cutDownConnection(UserProfile userProfile, CloseStatus closeStatus) {
-        final WebSocketSession webSocketSession = sessions.get(userProfile);
-        if (webSocketSession != null && webSocketSession.isOpen()) {
-            try {
-                webSocketSession.close(closeStatus);
-            } catch (IOException ignore) {
+        final Connection connection = connections.get(userProfile.getId());
+        if (connection != null) {
+            connection.getOutboundQueue().close(closeStatus);
+        }
+    }
+
+    /**
+     * Encodes the message once and queues the same payload on every open connection.
+     * A connection that can't keep up drops or conflates its own messages without holding up the others.
+     */
+    public void broadcast(Collection<Connection> recipients, Message message, boolean droppable)
+            throws IOException {
+        final MessageSendEvent event = new MessageSendEvent();
+        event.begin();
+        final String payload = encode(message);
+        for (Connection recipient : recipients) {
+            final OutboundQueue outboundQueue = recipient.getOutboundQueue();
+            if (outboundQueue.isOpen()) {
+                try {
+                    outboundQueue.send(payload, droppable);
+                } catch (IOException ignore) {
+                    // closed concurrently, the close handling forgets the recipient
+                }
             }
         }
+        record(event, message, recipients.size(), droppable, payload);
+    }
+
+    /**
+     * Queues the message on the connection unless it is closed, so a player who dropped out of a game
+     * misses snaps until they reconnect.
+     */
+    public void send(Connection recipient, Message message, boolean droppable) throws IOException {
+        final OutboundQueue outboundQueue = recipient.getOutboundQueue();
+        if (!outboundQueue.isOpen()) {
+            return;
+        }
+        final MessageSendEvent event = new MessageSendEvent();
+        event.begin();
+        final String payload = encode(message);
+        try {
+            outboundQueue.send(payload, droppable);
+        } catch (IOException ignore) {
+            // closed concurrently, the close handling forgets the recipient
+        }
+        record(event, message, 1, droppable, payload);
     }
 
     public void sendMessageToUser(UserProfile userProfile, Message message) throws IOException {
-        final WebSocketSession webSocketSession = sessions.get(userProfile);
-        if (webSocketSession == null) {
+        sendMessageToUser(userProfile, message, false);
+    }
+
+    public void sendMessageToUser(UserProfile userProfile, Message message, boolean droppable) throws IOException {
+        final Connection connection = connections.get(userProfile.getId());
+        if (connection == null) {
             throw new IOException("no game websocket for user " + userProfile.getLogin());
         }
-        if (!webSocketSession.isOpen()) {
+        final OutboundQueue outboundQueue = connection.getOutboundQueue();
+        if (!outboundQueue.isOpen()) {
             throw new IOException("session is closed or does not exsist");
         }
+        final MessageSendEvent event = new MessageSendEvent();
+        event.begin();
+        final String payload = encode(message);
+        outboundQueue.send(payload, droppable);
+        record(event, message, 1, droppable, payload);
+    }
+
+    private String encode(Message message) throws IOException {
         try {
-            webSocketSession.sendMessage(new TextMessage(objectMapper.writeValueAsString(message)));
-        } catch (JsonProcessingException | WebSocketException e) {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
             throw new IOException("Unnable to send message", e);
         }
     }
+
+    private static void record(MessageSendEvent event, Message message, int recipients, boolean droppable,
+                               String payload) {
+        if (event.shouldCommit()) {
+            event.type = message.getType();
+            event.recipients = recipients;
+            event.droppable = droppable;
+            event.length = payload.length();
+            event.commit();
+        }
+    }
 }
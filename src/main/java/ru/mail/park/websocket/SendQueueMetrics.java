@@ -0,0 +1,77 @@
+package ru.mail.park.websocket;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class SendQueueMetrics implements PublicMetrics {
+    private static final LongAdder DEPTH = new LongAdder();
+    private static final LongAccumulator MAX_DEPTH = new LongAccumulator(Long::max, 0);
+    private static final LongAdder SENT = new LongAdder();
+    private static final LongAdder CHARS = new LongAdder();
+    private static final LongAdder CONFLATED = new LongAdder();
+    private static final LongAdder DROPPED = new LongAdder();
+    private static final LongAdder OVERFLOW_DISCONNECTS = new LongAdder();
+    private static final LongAdder FAILED = new LongAdder();
+
+    static void enqueued(int depth) {
+        DEPTH.increment();
+        MAX_DEPTH.accumulate(depth);
+    }
+
+    static void dequeued(int count) {
+        DEPTH.add(-count);
+    }
+
+    static void sent() {
+        SENT.increment();
+    }
+
+    static void written(int chars) {
+        CHARS.add(chars);
+    }
+
+    /**
+     * @return chars of payload handed to the websockets so far, before encoding and compression
+     */
+    public static long getCharsWritten() {
+        return CHARS.sum();
+    }
+
+    static void conflated() {
+        CONFLATED.increment();
+    }
+
+    static void dropped(int count) {
+        DROPPED.add(count);
+    }
+
+    static void overflowDisconnect() {
+        OVERFLOW_DISCONNECTS.increment();
+    }
+
+    static void failed() {
+        FAILED.increment();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("websocket.send.queue.depth", DEPTH.sum()));
+        metrics.add(new Metric<>("websocket.send.queue.max-depth", MAX_DEPTH.get()));
+        metrics.add(new Metric<>("websocket.send.sent", SENT.sum()));
+        metrics.add(new Metric<>("websocket.send.chars", CHARS.sum()));
+        metrics.add(new Metric<>("websocket.send.conflated", CONFLATED.sum()));
+        metrics.add(new Metric<>("websocket.send.dropped", DROPPED.sum()));
+        metrics.add(new Metric<>("websocket.send.overflow-disconnects", OVERFLOW_DISCONNECTS.sum()));
+        metrics.add(new Metric<>("websocket.send.failed", FAILED.sum()));
+        return metrics;
+    }
+}
@@ -0,0 +1,57 @@
+package ru.mail.park.websocket;
+
+import org.jetbrains.annotations.Nullable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+import ru.mail.park.services.SessionToken;
+import ru.mail.park.services.SessionTokenService;
+
+import java.util.Map;
+
+/**
+ * Accepts a session token from the {@code token} query parameter, since browsers can't set headers
+ * on websocket handshakes, or from a bearer {@code Authorization} header.
+ * A handshake without a token falls through to the HTTP session; one with a bad token is refused.
+ */
+public class SessionTokenHandshakeInterceptor implements HandshakeInterceptor {
+    private final SessionTokenService sessionTokenService;
+
+    public SessionTokenHandshakeInterceptor(SessionTokenService sessionTokenService) {
+        this.sessionTokenService = sessionTokenService;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        final String token = extractToken(request);
+        if (token == null) {
+            return true;
+        }
+        final SessionToken sessionToken = sessionTokenService.verify(token);
+        if (sessionToken == null) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        attributes.put(SessionToken.ATTRIBUTE, sessionToken);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    @Nullable
+    public static String extractToken(ServerHttpRequest request) {
+        final String bearer = SessionTokenService.fromBearer(request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        if (bearer != null) {
+            return bearer;
+        }
+        return UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("token");
+    }
+}
@@ -0,0 +1,12 @@
+package ru.mail.park.websocket;
+
+public enum SlowConsumerPolicy {
+    /**
+     * Drop pending droppable messages (server snaps carry the full state) and keep the latest one.
+     */
+    DROP_STALE,
+    /**
+     * Close the connection as soon as its send queue overflows.
+     */
+    DISCONNECT
+}
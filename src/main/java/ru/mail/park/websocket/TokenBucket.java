@@ -0,0 +1,38 @@
+package ru.mail.park.websocket;
+
+/**
+ * Admits {@code rate} events per second on average and up to {@code burst} at once.
+ * Refilled lazily from the elapsed time, so an idle bucket costs nothing.
+ */
+public class TokenBucket {
+    private static final double NANOS_PER_SECOND = 1e9;
+    private final double tokensPerNano;
+    private final double burst;
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(double rate, int burst) {
+        this(rate, burst, System.nanoTime());
+    }
+
+    public TokenBucket(double rate, int burst, long now) {
+        this.tokensPerNano = rate / NANOS_PER_SECOND;
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.refilledAt = now;
+    }
+
+    public boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    public synchronized boolean tryAcquire(long now) {
+        tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+}
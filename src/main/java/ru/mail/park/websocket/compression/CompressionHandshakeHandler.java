@@ -0,0 +1,48 @@
+package ru.mail.park.websocket.compression;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.server.RequestUpgradeStrategy;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+import ru.mail.park.websocket.config.WebSocketSettings;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Decides per connection whether permessage-deflate is negotiated: it must be enabled in settings,
+ * offered by the client and not refused with a {@code compress=false} handshake parameter.
+ */
+public class CompressionHandshakeHandler extends DefaultHandshakeHandler {
+    public static final String EXTENSION_NAME = "permessage-deflate";
+    public static final String COMPRESS_PARAMETER = "compress";
+
+    public CompressionHandshakeHandler(RequestUpgradeStrategy requestUpgradeStrategy) {
+        super(requestUpgradeStrategy);
+    }
+
+    @Override
+    protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+                                                                 List<WebSocketExtension> requestedExtensions,
+                                                                 List<WebSocketExtension> supportedExtensions) {
+        final List<WebSocketExtension> extensions = super.filterRequestedExtensions(request, requestedExtensions,
+                supportedExtensions);
+        if (extensions.stream().noneMatch(extension -> EXTENSION_NAME.equals(extension.getName()))) {
+            return extensions;
+        }
+        if (WebSocketSettings.isCompressionEnabled() && isRequested(request)) {
+            CompressionMetrics.connectionNegotiated();
+            return extensions;
+        }
+        CompressionMetrics.connectionDeclined();
+        return extensions.stream().filter(extension -> !EXTENSION_NAME.equals(extension.getName()))
+                .collect(Collectors.toList());
+    }
+
+    private boolean isRequested(ServerHttpRequest request) {
+        final String compress = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams()
+                .getFirst(COMPRESS_PARAMETER);
+        return compress == null || Boolean.parseBoolean(compress);
+    }
+}
@@ -0,0 +1,68 @@
+package ru.mail.park.websocket.compression;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters are static because extensions are instantiated by Jetty, not by Spring.
+ */
+@Component
+public class CompressionMetrics implements PublicMetrics {
+    private static final LongAdder NEGOTIATED = new LongAdder();
+    private static final LongAdder DECLINED = new LongAdder();
+    private static final LongAdder COMPRESSED = new LongAdder();
+    private static final LongAdder SKIPPED = new LongAdder();
+    private static final LongAdder BYTES_IN = new LongAdder();
+    private static final LongAdder BYTES_OUT = new LongAdder();
+    private static final LongAdder BYTES_SKIPPED = new LongAdder();
+    private static final LongAdder NANOS = new LongAdder();
+
+    static void connectionNegotiated() {
+        NEGOTIATED.increment();
+    }
+
+    static void connectionDeclined() {
+        DECLINED.increment();
+    }
+
+    static void messageSkipped(int bytes) {
+        SKIPPED.increment();
+        BYTES_SKIPPED.add(bytes);
+    }
+
+    static void messageCompressed(int bytesIn, long nanos) {
+        COMPRESSED.increment();
+        BYTES_IN.add(bytesIn);
+        NANOS.add(nanos);
+    }
+
+    static void frameCompressed(int bytesOut) {
+        BYTES_OUT.add(bytesOut);
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final long compressed = COMPRESSED.sum();
+        final long bytesIn = BYTES_IN.sum();
+        final long bytesOut = BYTES_OUT.sum();
+        final long nanos = NANOS.sum();
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("websocket.compression.connections.negotiated", NEGOTIATED.sum()));
+        metrics.add(new Metric<>("websocket.compression.connections.declined", DECLINED.sum()));
+        metrics.add(new Metric<>("websocket.compression.messages.compressed", compressed));
+        metrics.add(new Metric<>("websocket.compression.messages.skipped", SKIPPED.sum()));
+        metrics.add(new Metric<>("websocket.compression.bytes.in", bytesIn));
+        metrics.add(new Metric<>("websocket.compression.bytes.out", bytesOut));
+        metrics.add(new Metric<>("websocket.compression.bytes.skipped", BYTES_SKIPPED.sum()));
+        metrics.add(new Metric<>("websocket.compression.ratio", bytesIn == 0 ? 1.0 : (double) bytesOut / bytesIn));
+        metrics.add(new Metric<>("websocket.compression.nanos.total", nanos));
+        metrics.add(new Metric<>("websocket.compression.nanos.per-message", compressed == 0 ? 0 : nanos / compressed));
+        return metrics;
+    }
+}
@@ -0,0 +1,47 @@
+package ru.mail.park.websocket.compression;
+
+import org.eclipse.jetty.websocket.api.BatchMode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.api.extensions.Frame;
+import org.eclipse.jetty.websocket.common.extensions.compress.PerMessageDeflateExtension;
+import ru.mail.park.websocket.config.WebSocketSettings;
+
+/**
+ * permessage-deflate that leaves messages below {@code websocket.compression-min-size} uncompressed
+ * (RFC 7692 allows it by keeping RSV1 clear) and reports ratio and time spent deflating.
+ * Sends on one connection are serialized by the caller, so bypassing the deflate queue keeps frame order.
+ */
+public class TunablePerMessageDeflateExtension extends PerMessageDeflateExtension {
+    private final int minSize = WebSocketSettings.getCompressionMinSize();
+    private long compressionStarted;
+    private int pendingBytes;
+
+    public TunablePerMessageDeflateExtension() {
+        getDeflater().setLevel(WebSocketSettings.getCompressionLevel());
+    }
+
+    @Override
+    public void outgoingFrame(Frame frame, WriteCallback callback, BatchMode batchMode) {
+        if (frame.getType().isData() && frame.isFin() && frame.getPayloadLength() < minSize) {
+            CompressionMetrics.messageSkipped(frame.getPayloadLength());
+            super.nextOutgoingFrame(frame, callback, batchMode);
+            return;
+        }
+        if (frame.getType().isData()) {
+            compressionStarted = System.nanoTime();
+            pendingBytes = frame.getPayloadLength();
+        }
+        super.outgoingFrame(frame, callback, batchMode);
+    }
+
+    @Override
+    protected void nextOutgoingFrame(Frame frame, WriteCallback callback, BatchMode batchMode) {
+        if (!frame.getType().isControl()) {
+            CompressionMetrics.frameCompressed(frame.getPayloadLength());
+            if (frame.isFin()) {
+                CompressionMetrics.messageCompressed(pendingBytes, System.nanoTime() - compressionStarted);
+            }
+        }
+        super.nextOutgoingFrame(frame, callback, batchMode);
+    }
+}
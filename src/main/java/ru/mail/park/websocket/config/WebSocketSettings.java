@@ -0,0 +1,82 @@
+package ru.mail.park.websocket.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import ru.mail.park.websocket.SlowConsumerPolicy;
+
+@ConfigurationProperties(prefix = "websocket")
+@Component
+public class WebSocketSettings {
+    private static boolean compressionEnabled;
+    private static int compressionMinSize;
+    private static int compressionLevel;
+    private static int sendQueueCapacity;
+    private static SlowConsumerPolicy slowConsumerPolicy;
+    private static long heartbeatIntervalMs;
+    private static long heartbeatTimeoutMs;
+    private static long heartbeatTickMs;
+
+    public static boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    public void setCompressionEnabled(boolean compressionEnabled) {
+        WebSocketSettings.compressionEnabled = compressionEnabled;
+    }
+
+    public static int getCompressionMinSize() {
+        return compressionMinSize;
+    }
+
+    public void setCompressionMinSize(int compressionMinSize) {
+        WebSocketSettings.compressionMinSize = compressionMinSize;
+    }
+
+    public static int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        WebSocketSettings.compressionLevel = compressionLevel;
+    }
+
+    public static int getSendQueueCapacity() {
+        return sendQueueCapacity;
+    }
+
+    public void setSendQueueCapacity(int sendQueueCapacity) {
+        WebSocketSettings.sendQueueCapacity = sendQueueCapacity;
+    }
+
+    public static SlowConsumerPolicy getSlowConsumerPolicy() {
+        return slowConsumerPolicy;
+    }
+
+    public void setSlowConsumerPolicy(SlowConsumerPolicy slowConsumerPolicy) {
+        WebSocketSettings.slowConsumerPolicy = slowConsumerPolicy;
+    }
+
+    public static long getHeartbeatIntervalMs() {
+        return heartbeatIntervalMs;
+    }
+
+    public void setHeartbeatIntervalMs(long heartbeatIntervalMs) {
+        WebSocketSettings.heartbeatIntervalMs = heartbeatIntervalMs;
+    }
+
+    public static long getHeartbeatTimeoutMs() {
+        return heartbeatTimeoutMs;
+    }
+
+    public void setHeartbeatTimeoutMs(long heartbeatTimeoutMs) {
+        WebSocketSettings.heartbeatTimeoutMs = heartbeatTimeoutMs;
+    }
+
+    public static long getHeartbeatTickMs() {
+        return heartbeatTickMs;
+    }
+
+    public void setHeartbeatTickMs(long heartbeatTickMs) {
+        WebSocketSettings.heartbeatTickMs = heartbeatTickMs;
+    }
+}
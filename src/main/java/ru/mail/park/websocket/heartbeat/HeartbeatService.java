@@ -0,0 +1,99 @@
+package ru.mail.park.websocket.heartbeat;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import ru.mail.park.websocket.Connection;
+import ru.mail.park.websocket.config.WebSocketSettings;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pings idle game connections and drops the ones that stay silent longer than the heartbeat timeout.
+ * All connections share one timer wheel ticked by a single thread.
+ * Dropping a connection goes through the usual close handling, which frees its game and matchmaking slots.
+ */
+@Service
+public class HeartbeatService {
+    private static final int WHEEL_SIZE = 512;
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private volatile TimerWheel<Connection> wheel;
+    private ScheduledExecutorService ticker;
+
+    /**
+     * Started once the context is refreshed: the settings are static and may not be bound yet
+     * when this service is created.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        wheel = new TimerWheel<>(WebSocketSettings.getHeartbeatTickMs(), WHEEL_SIZE);
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, wheel.getTickMs(), wheel.getTickMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    private synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    public void watch(Connection connection) {
+        wheel.schedule(connection, WebSocketSettings.getHeartbeatIntervalMs());
+    }
+
+    private void tick() {
+        try {
+            wheel.advance(this::check);
+        } catch (RuntimeException e) {
+            logger.error("heartbeat tick failed", e);
+        }
+    }
+
+    private void check(Connection connection) {
+        if (connection.isClosed()) {
+            return;
+        }
+        final long silentMs = System.currentTimeMillis() - connection.getLastSeen();
+        if (silentMs > WebSocketSettings.getHeartbeatTimeoutMs()) {
+            logger.info("no heartbeat from {} for {} ms, disconnecting", connection.getUserProfile().getLogin(),
+                    silentMs);
+            disconnect(connection);
+            return;
+        }
+        if (silentMs >= WebSocketSettings.getHeartbeatIntervalMs()) {
+            try {
+                connection.getWebSocketSession().sendMessage(new PingMessage());
+            } catch (IOException | RuntimeException e) {
+                logger.debug("failed to ping {}", connection.getUserProfile().getLogin(), e);
+                disconnect(connection);
+                return;
+            }
+        }
+        watch(connection);
+    }
+
+    private void disconnect(Connection connection) {
+        try {
+            ((NativeWebSocketSession) connection.getWebSocketSession()).getNativeSession(Session.class).disconnect();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("failed to disconnect {}", connection.getUserProfile().getLogin(), e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package ru.mail.park.websocket.heartbeat;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel: timeouts are hashed into buckets by their deadline tick, so scheduling is O(1)
+ * and a tick only looks at one bucket, whatever the number of timeouts.
+ * Timeouts may be scheduled from any thread, {@link #advance} must be called by a single ticking thread.
+ */
+public class TimerWheel<T> {
+    private final long tickMs;
+    private final int mask;
+    private final List<Deque<Timeout<T>>> buckets;
+    private final Queue<Timeout<T>> scheduled = new ConcurrentLinkedQueue<>();
+    private long tick;
+
+    /**
+     * @param wheelSize number of buckets, a power of two
+     */
+    public TimerWheel(long tickMs, int wheelSize) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheel size must be a power of two: " + wheelSize);
+        }
+        this.tickMs = tickMs;
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    public void schedule(T item, long delayMs) {
+        scheduled.add(new Timeout<>(item, Math.max(1, (delayMs + tickMs - 1) / tickMs)));
+    }
+
+    /**
+     * Moves the wheel one tick forward and passes every expired item to the consumer.
+     */
+    public void advance(Consumer<T> expired) {
+        tick++;
+        for (Timeout<T> timeout = scheduled.poll(); timeout != null; timeout = scheduled.poll()) {
+            timeout.deadline = tick + timeout.deadline - 1;
+            buckets.get((int) (timeout.deadline & mask)).add(timeout);
+        }
+        final List<T> due = new ArrayList<>();
+        for (Iterator<Timeout<T>> iterator = buckets.get((int) (tick & mask)).iterator(); iterator.hasNext(); ) {
+            final Timeout<T> timeout = iterator.next();
+            if (timeout.deadline <= tick) {
+                iterator.remove();
+                due.add(timeout.item);
+            }
+        }
+        due.forEach(expired);
+    }
+
+    private static final class Timeout<T> {
+        private final T item;
+        private long deadline;
+
+        private Timeout(T item, long delayTicks) {
+            this.item = item;
+            this.deadline = delayTicks;
+        }
+    }
+}
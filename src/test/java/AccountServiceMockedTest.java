@@ -12,6 +12,7 @@ import ru.mail.park.services.SecurityService;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -40,19 +41,38 @@ public abstract class AccountServiceMockedTest {
                 if (users.stream().anyMatch(user -> user.getLogin().equals(login) || user.getEmail().equals(email))) {
                     throw new UserAlreadyExistsException();
                 }
-                users.add(new UserProfile(login, email, password));
+                users.add(new UserProfile(users.size() + 1, login, email, password, 0));
                 return null;
             }).when(accountService).addUser(any(), any(), any());
             doAnswer(invocationOnMock -> {
                 String login = (String) invocationOnMock.getArguments()[0];
                 return users.stream().filter(user -> user.getLogin().equals(login)).findAny().orElse(null);
             }).when(accountService).getUserByLogin(any());
+            doAnswer(invocationOnMock -> {
+                String email = (String) invocationOnMock.getArguments()[0];
+                return users.stream().filter(user -> user.getEmail().equals(email)).findAny().orElse(null);
+            }).when(accountService).getUserByEmail(any());
+            doAnswer(invocationOnMock -> {
+                @SuppressWarnings("unchecked")
+                BiConsumer<String, String> consumer = (BiConsumer<String, String>) invocationOnMock.getArguments()[0];
+                users.forEach(user -> consumer.accept(user.getLogin(), user.getEmail()));
+                return null;
+            }).when(accountService).forEachLoginAndEmail(any());
             doAnswer(invocationOnMock -> {
                 UserProfile updatedUser = (UserProfile) invocationOnMock.getArguments()[0];
                 users.stream().filter(user -> user.getLogin().equals(updatedUser.getLogin())).findAny()
                         .ifPresent(user -> user.setRank(updatedUser.getRank()));
                 return null;
             }).when(accountService).updateUser(any());
+            doAnswer(invocationOnMock -> {
+                final Object[] args = invocationOnMock.getArguments();
+                final int amount = (int) args[2];
+                users.stream().filter(user -> user.getLogin().equals(((UserProfile) args[0]).getLogin())).findAny()
+                        .ifPresent(user -> user.setRank(user.getRank() + amount));
+                users.stream().filter(user -> user.getLogin().equals(((UserProfile) args[1]).getLogin())).findAny()
+                        .ifPresent(user -> user.setRank(user.getRank() - amount));
+                return null;
+            }).when(accountService).transferRank(any(), any(), anyInt());
             doAnswer(invocationOnMock -> {
                 int limit = (int) invocationOnMock.getArguments()[0];
                 Stream<UserProfile> sorted = users.stream().sorted(Comparator.comparingInt(UserProfile::getRank)
@@ -0,0 +1,84 @@
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import ru.mail.park.Application;
+import ru.mail.park.game.bot.BotPlayer;
+import ru.mail.park.game.bot.BotService;
+import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.game.mechanics.GameSession;
+import ru.mail.park.game.mechanics.Player;
+import ru.mail.park.game.mechanics.Square;
+import ru.mail.park.game.solver.Solver;
+import ru.mail.park.model.UserProfile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = Application.class)
+public class BotTest {
+    @Autowired
+    private Solver solver;
+    @Autowired
+    private BotService botService;
+
+    @Test
+    public void skilledBotPlaysShortestSolution() {
+        final SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 10; i++) {
+            final Square target = new Square(GameSettings.getTargetScramble(), random);
+            final BotPlayer bot = new BotPlayer(solver, 1, new SplittableRandom(i));
+            final GameSession session = new GameSession(new Player(new UserProfile(1, "a", "b", "c", 0)), bot, target);
+            final int moves = solver.rate(target);
+            for (int move = 0; move < moves; move++) {
+                assertFalse(session.isWinner(bot));
+                session.processAction(bot, bot.nextMove(target));
+            }
+            assertTrue(session.isWinner(bot));
+        }
+    }
+
+    @Test
+    public void clumsyBotMovesAtRandom() {
+        final Square target = new Square(GameSettings.getTargetScramble());
+        final BotPlayer bot = new BotPlayer(solver, 0, new SplittableRandom(7));
+        for (int i = 0; i < 100; i++) {
+            assertNotNull(bot.nextMove(target));
+        }
+    }
+
+    @Test
+    public void botGamesAreBounded() {
+        final List<BotPlayer> bots = new ArrayList<>();
+        while (bots.size() < GameSettings.getBotMaxGames()) {
+            final BotPlayer bot = botService.tryCreateBot();
+            assertNotNull(bot);
+            bots.add(bot);
+        }
+        assertNull(botService.tryCreateBot());
+        botService.release(bots.remove(0));
+        bots.add(botService.tryCreateBot());
+        assertNotNull(bots.get(bots.size() - 1));
+        bots.forEach(botService::release);
+        assertEquals(0, botService.getActiveGames());
+    }
+
+    @Test
+    public void botProfilesCompareLikeUsers() {
+        final BotPlayer first = botService.tryCreateBot();
+        final BotPlayer second = botService.tryCreateBot();
+        try {
+            assertEquals(first.getUser(), second.getUser());
+            assertEquals(first.getUser().hashCode(), second.getUser().hashCode());
+            assertNotEquals(first.getUser(), new UserProfile(1, "a", "b", "c", 0));
+        } finally {
+            botService.release(first);
+            botService.release(second);
+        }
+    }
+}
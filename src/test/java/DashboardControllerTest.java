@@ -0,0 +1,60 @@
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.embedded.LocalServerPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit4.SpringRunner;
+import ru.mail.park.Application;
+import ru.mail.park.services.config.SecuritySettings;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings("SpringJavaAutowiredMembersInspection")
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = Application.class)
+public class DashboardControllerTest extends AccountServiceMockedTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @LocalServerPort
+    private int port;
+
+    @Test
+    public void adminTokenRequired() {
+        assertEquals(HttpStatus.FORBIDDEN, restTemplate.getForEntity("/api/admin/dashboard", String.class)
+                .getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, restTemplate.getForEntity("/api/admin/dashboard?token=wrong",
+                String.class).getStatusCode());
+    }
+
+    @Test
+    public void streamsStats() throws Exception {
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port
+                + "/api/admin/dashboard?token=" + SecuritySettings.getAdminToken()).openConnection();
+        connection.setReadTimeout(5000);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                StandardCharsets.UTF_8))) {
+            assertTrue(connection.getContentType().startsWith("text/event-stream"));
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && !line.startsWith("data:"));
+            assertNotNull(line);
+            final JSONObject stats = new JSONObject(line.substring("data:".length()));
+            assertTrue(stats.getInt("sessions") >= 0);
+            assertTrue(stats.getLong("heapUsed") > 0);
+            assertTrue(stats.has("movesPerSecond"));
+            assertTrue(stats.has("moveLatencyP99"));
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+import ru.mail.park.logging.EventLog;
+import ru.mail.park.logging.config.LogSettings;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EventLogTest {
+    private final LogSettings settings = new LogSettings();
+    private final Logger logger = (Logger) LoggerFactory.getLogger(EventLogTest.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private int maxPerSecond;
+    private int sampleEvery;
+
+    @Before
+    public void init() {
+        maxPerSecond = LogSettings.getMaxPerSecond();
+        sampleEvery = LogSettings.getSampleEvery();
+        appender.start();
+        logger.addAppender(appender);
+        logger.setLevel(Level.DEBUG);
+    }
+
+    @After
+    public void restore() {
+        logger.detachAppender(appender);
+        logger.setLevel(null);
+        settings.setMaxPerSecond(maxPerSecond);
+        settings.setSampleEvery(sampleEvery);
+    }
+
+    @Test
+    public void floodIsLimited() {
+        settings.setMaxPerSecond(3);
+        final EventLog eventLog = new EventLog(EventLogTest.class, "test.flood", "login={}");
+        for (int i = 0; i < 10; i++) {
+            eventLog.warn("player" + i);
+        }
+        assertEquals(3, appender.list.size());
+        assertEquals("event=test.flood login=player0", appender.list.get(0).getFormattedMessage());
+        assertEquals(Level.WARN, appender.list.get(0).getLevel());
+    }
+
+    @Test
+    public void reportsSuppressedAfterFlood() {
+        settings.setMaxPerSecond(1);
+        final EventLog eventLog = new EventLog(EventLogTest.class, "test.suppressed", "");
+        final long start = System.nanoTime();
+        assertEquals(0, eventLog.admit(start));
+        assertEquals(-1, eventLog.admit(start + 1));
+        assertEquals(-1, eventLog.admit(start + 2));
+        assertEquals(2, eventLog.admit(start + TimeUnit.SECONDS.toNanos(1) + 1));
+    }
+
+    @Test
+    public void suppressedCountPrecedesThrowable() throws Exception {
+        settings.setMaxPerSecond(1);
+        final EventLog eventLog = new EventLog(EventLogTest.class, "test.failed", "login={}");
+        for (int i = 0; i < 5; i++) {
+            eventLog.error("player", new IOException("broken pipe"));
+        }
+        TimeUnit.MILLISECONDS.sleep(1100);
+        eventLog.error("player", new IOException("broken pipe"));
+        assertEquals(2, appender.list.size());
+        final ILoggingEvent last = appender.list.get(1);
+        assertEquals("event=test.failed login=player suppressed=4", last.getFormattedMessage());
+        assertNotNull(last.getThrowableProxy());
+    }
+
+    @Test
+    public void debugIsSampled() {
+        settings.setSampleEvery(3);
+        final EventLog eventLog = new EventLog(EventLogTest.class, "test.sampled", "type={} login={}");
+        for (int i = 0; i < 7; i++) {
+            eventLog.debug("PlayerAction", "player");
+        }
+        assertEquals(3, appender.list.size());
+        assertEquals("event=test.sampled type=PlayerAction login=player", appender.list.get(0).getFormattedMessage());
+    }
+
+    @Test
+    public void disabledLevelFormatsNothing() {
+        logger.setLevel(Level.ERROR);
+        final EventLog eventLog = new EventLog(EventLogTest.class, "test.disabled", "value={}");
+        eventLog.debug(new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("formatted a disabled event");
+            }
+        });
+        eventLog.warn(EventLog.abbreviate("frame", 1));
+        assertTrue(appender.list.isEmpty());
+    }
+
+    @Test
+    public void abbreviatesLongValues() {
+        assertEquals("short", EventLog.abbreviate("short", 10).toString());
+        assertEquals("0123...(10 chars)", EventLog.abbreviate("0123456789", 4).toString());
+    }
+}
@@ -1,13 +1,17 @@
 import org.json.JSONObject;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.mockito.stubbing.Answer;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import ru.mail.park.game.GameMechService;
+import ru.mail.park.game.bot.BotPlayer;
+import ru.mail.park.game.config.GameSettings;
 import ru.mail.park.game.mechanics.GameSession;
 import ru.mail.park.game.mechanics.Player;
 import ru.mail.park.game.messaging.PlayerAction;
 import ru.mail.park.game.messaging.ServerSnapService;
 import ru.mail.park.model.UserProfile;
+import ru.mail.park.websocket.Connection;
 import ru.mail.park.websocket.Message;
 import ru.mail.park.websocket.RemotePointService;
 
@@ -18,6 +22,7 @@ import java.util.concurrent.Executors;
 
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
@@ -31,7 +36,8 @@ public class GameMechServiceTest extends AccountServiceMockedTest {
     private ExecutorService executor = Executors.newFixedThreadPool(10);
     private boolean initialized = false;
     private Map<UserProfile, List<Message>> messages = new HashMap<>();
-    private Queue<UserProfile> queue;
+    private Map<UserProfile, Connection> connections = new IdentityHashMap<>();
+    private Queue<Connection> queue;
     private Map<UserProfile, GameSession> sessions;
 
     @SuppressWarnings("unchecked")
@@ -40,14 +46,23 @@ public class GameMechServiceTest extends AccountServiceMockedTest {
         if (!initialized) {
             super.init();
             when(remotePointService.isConnected(any())).thenReturn(true);
-            doAnswer(invocationOnMock -> {
+            when(remotePointService.isCurrent(any())).thenReturn(true);
+            final Answer<Void> recordMessage = invocationOnMock -> {
                 final Object[] args = invocationOnMock.getArguments();
                 UserProfile user = (UserProfile) args[0];
                 Message message = (Message) args[1];
                 List<Message> userMessages = messages.computeIfAbsent(user, k -> new ArrayList<>());
                 userMessages.add(message);
                 return null;
-            }).when(remotePointService).sendMessageToUser(any(), any());
+            };
+            doAnswer(recordMessage).when(remotePointService).sendMessageToUser(any(), any());
+            doAnswer(recordMessage).when(remotePointService).sendMessageToUser(any(), any(), anyBoolean());
+            doAnswer(invocationOnMock -> {
+                final Object[] args = invocationOnMock.getArguments();
+                messages.computeIfAbsent(((Connection) args[0]).getUserProfile(), k -> new ArrayList<>())
+                        .add((Message) args[1]);
+                return null;
+            }).when(remotePointService).send(any(), any(), anyBoolean());
             if (queue == null) {
                 Field queueField = GameMechService.class.getDeclaredField("queue");
                 queueField.setAccessible(true);
@@ -61,6 +76,7 @@ public class GameMechServiceTest extends AccountServiceMockedTest {
         }
         initialized = true;
         messages.clear();
+        connections.clear();
         queue.clear();
         sessions.clear();
     }
@@ -69,9 +85,10 @@ public class GameMechServiceTest extends AccountServiceMockedTest {
     public void disconnectAll() throws Exception {
         addUsers(10);
         for (UserProfile user : users) {
-            executor.execute(() -> gameMechService.handleDisconnect(user));
+            final Connection connection = connections.get(user);
+            executor.execute(() -> gameMechService.handleDisconnect(connection));
         }
-        Thread.sleep(200);
+        Thread.sleep(GameSettings.getReconnectGraceMs() + 200);
         assertEquals(0, sessions.size());
     }
 
@@ -79,18 +96,40 @@ public class GameMechServiceTest extends AccountServiceMockedTest {
     public void disconnectOne() throws Exception {
         int userCount = 10;
         addUsers(userCount);
-        gameMechService.handleDisconnect(users.get(0));
+        gameMechService.handleDisconnect(connections.get(users.get(0)));
+        assertEquals(userCount, sessions.size());
+        Thread.sleep(GameSettings.getReconnectGraceMs() + 200);
         assertEquals(userCount - 2, sessions.size());
     }
 
+    @Test
+    public void reconnectResumesGame() throws Exception {
+        addUsers(2);
+        final UserProfile dropped = users.get(0);
+        final GameSession session = connections.get(dropped).getGameSession();
+        gameMechService.handleDisconnect(connections.get(dropped));
+        gameMechService.addPlayerAction(connections.get(users.get(1)), new PlayerAction());
+        final Connection reconnected = new Connection(dropped, null);
+        messages.clear();
+        gameMechService.handleConnect(reconnected);
+        assertSame(session, reconnected.getGameSession());
+        assertEquals(1, messages.get(dropped).size());
+        final JSONObject snap = new JSONObject(messages.get(dropped).get(0).getContent());
+        assertEquals(session.getSecond().getSquare().getMatrix()[0][0],
+                snap.getJSONArray("opponentMatrix").getJSONArray(0).getInt(0));
+        Thread.sleep(GameSettings.getReconnectGraceMs() + 200);
+        assertFalse(session.isOver());
+        assertEquals(2, sessions.size());
+    }
+
     @Test
     public void disconnectHalfUnique() throws Exception {
         addUsers(20);
         sessions.values().stream().distinct().limit(5).forEach(session -> {
-            UserProfile user = session.getFirst().getUser();
-            executor.execute(() -> gameMechService.handleDisconnect(user));
+            final Connection connection = connections.get(session.getFirst().getUser());
+            executor.execute(() -> gameMechService.handleDisconnect(connection));
         });
-        Thread.sleep(200);
+        Thread.sleep(GameSettings.getReconnectGraceMs() + 200);
         assertEquals(10, sessions.size());
     }
 
@@ -107,7 +146,7 @@ public class GameMechServiceTest extends AccountServiceMockedTest {
         addUsers(2);
         int actionCount = 10;
         for (int i = 0; i < actionCount; i++) {
-            executor.execute(() -> gameMechService.addPlayerAction(users.get(0), new PlayerAction()));
+            executor.execute(() -> gameMechService.addPlayerAction(connections.get(users.get(0)), new PlayerAction()));
         }
         Thread.sleep(200);
         int messageCount = messages.values().stream().mapToInt(List::size).sum();
@@ -120,13 +159,26 @@ public class GameMechServiceTest extends AccountServiceMockedTest {
         int actionCount = 20;
         for (int i = 0; i < actionCount; i++) {
             int n = (int) (2 * Math.random());
-            executor.execute(() -> gameMechService.addPlayerAction(users.get(n), new PlayerAction()));
+            executor.execute(() -> gameMechService.addPlayerAction(connections.get(users.get(n)), new PlayerAction()));
         }
         Thread.sleep(200);
         int messageCount = messages.values().stream().mapToInt(List::size).sum();
         assertEquals(2 + actionCount * 2, messageCount);
     }
 
+    @Test
+    public void lonePlayerPlaysBot() throws Exception {
+        addUsers(1);
+        Thread.sleep(GameSettings.getBotWaitMs() + 2000);
+        assertEquals(0, sessions.size());
+        final List<Message> userMessages = messages.get(users.get(0));
+        final JSONObject first = new JSONObject(userMessages.get(0).getContent());
+        final JSONObject last = new JSONObject(userMessages.get(userMessages.size() - 1).getContent());
+        assertEquals("bot", first.getString("opponent"));
+        assertTrue(last.getBoolean("gameOver"));
+        assertFalse(last.getBoolean("win"));
+    }
+
     @Test
     public void checkReceiver() throws Exception {
         UserProfile user = new UserProfile("a", "b", "c");
@@ -137,11 +189,13 @@ public class GameMechServiceTest extends AccountServiceMockedTest {
 
     @Test
     public void gameOverReceivers() throws Exception {
-        UserProfile user1 = new UserProfile("a", "b", "c");
-        UserProfile user2 = new UserProfile("q", "w", "e");
+        UserProfile user1 = new UserProfile(1, "a", "b", "c", 0);
+        UserProfile user2 = new UserProfile(2, "q", "w", "e", 0);
         Player player1 = new Player(user1);
         Player player2 = new Player(user2);
         GameSession session = new GameSession(player1, player2);
+        new Connection(user1, null).join(session, player1);
+        new Connection(user2, null).join(session, player2);
         serverSnapService.sendGameOverSnaps(session, player1);
         List<Message> messages1 = messages.get(user1);
         List<Message> messages2 = messages.get(user2);
@@ -159,13 +213,29 @@ public class GameMechServiceTest extends AccountServiceMockedTest {
         assertFalse(win2);
     }
 
+    @Test
+    public void playerNamedLikeBotLosesToBot() throws Exception {
+        UserProfile user = new UserProfile(1, BotPlayer.LOGIN, "w", "e", 0);
+        Player player = new Player(user);
+        BotPlayer bot = new BotPlayer(null, 1, new SplittableRandom(1));
+        GameSession session = new GameSession(player, bot);
+        new Connection(user, null).join(session, player);
+        serverSnapService.sendGameOverSnaps(session, bot);
+        JSONObject content = new JSONObject(messages.get(user).get(0).getContent());
+        assertTrue(content.getBoolean("gameOver"));
+        assertFalse(content.getBoolean("win"));
+    }
+
     private void addUsers(int count) throws InterruptedException {
         for (int i = 0; i < count; i++) {
             accountService.addUser("login" + i, "email" + i, "password" + i);
         }
+        for (UserProfile user : users) {
+            connections.put(user, new Connection(user, null));
+        }
         for (int i = 0; i < count; i++) {
-            int finalI = i;
-            executor.execute(() -> gameMechService.addPlayer(users.get(finalI)));
+            final Connection connection = connections.get(users.get(i));
+            executor.execute(() -> gameMechService.addPlayer(connection));
         }
         Thread.sleep(200);
     }
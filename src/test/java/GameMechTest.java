@@ -16,6 +16,7 @@ import ru.mail.park.game.messaging.ServerSnap;
 import ru.mail.park.model.UserProfile;
 import ru.mail.park.model.exception.UserAlreadyExistsException;
 import ru.mail.park.services.AccountService;
+import ru.mail.park.websocket.Connection;
 import ru.mail.park.websocket.Message;
 import ru.mail.park.websocket.RemotePointService;
 
@@ -27,6 +28,7 @@ import java.util.Queue;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
@@ -52,7 +54,7 @@ public class GameMechTest {
             final Object[] args = invocationOnMock.getArguments();
             messages.add((Message) args[1]);
             return null;
-        }).when(remotePointService).sendMessageToUser(any(), any());
+        }).when(remotePointService).send(any(), any(), anyBoolean());
         try {
             accountService.addUser("TestUser-1", "TestPassword-1", "TestEmail-1");
         } catch (UserAlreadyExistsException ignore) {
@@ -68,12 +70,13 @@ public class GameMechTest {
     @SuppressWarnings({"OverlyBroadThrowsClause", "unchecked"})
     @Test
     public void test() throws Exception {
-        gameMechService.addPlayer(first);
-        gameMechService.addPlayer(second);
+        final Connection firstConnection = new Connection(first, null);
+        gameMechService.addPlayer(firstConnection);
+        gameMechService.addPlayer(new Connection(second, null));
         final Field sessionsField = gameMechService.getClass().getDeclaredField("sessions");
         sessionsField.setAccessible(true);
-        final Map<UserProfile, GameSession> sessions = (Map<UserProfile, GameSession>) sessionsField.get(gameMechService);
-        final GameSession session = sessions.get(first);
+        final Map<Long, GameSession> sessions = (Map<Long, GameSession>) sessionsField.get(gameMechService);
+        final GameSession session = sessions.get((long) first.getId());
         final Field targetField = session.getClass().getDeclaredField("target");
         targetField.setAccessible(true);
         final int[][] initialMatrix = new Square().getMatrix();
@@ -88,7 +91,7 @@ public class GameMechTest {
         playerAction.setRow(1);
         playerAction.setCol(2);
         playerAction.setPositive(true);
-        gameMechService.addPlayerAction(first, playerAction);
+        gameMechService.addPlayerAction(firstConnection, playerAction);
         final Square square = new Square();
         square.activate(1, 2, 2, 1);
         testServerSnap(first, second, messages.poll(), square.getMatrix(), initialMatrix, newTarget.getMatrix(),
@@ -99,7 +102,7 @@ public class GameMechTest {
         winningAction.setRow(3);
         winningAction.setCol(4);
         winningAction.setPositive(true);
-        gameMechService.addPlayerAction(first, winningAction);
+        gameMechService.addPlayerAction(firstConnection, winningAction);
         testServerSnap(first, second, messages.poll(), newTarget.getMatrix(), initialMatrix, newTarget.getMatrix(),
                 true, true);
         testServerSnap(second, first, messages.poll(), initialMatrix, newTarget.getMatrix(), newTarget.getMatrix(),
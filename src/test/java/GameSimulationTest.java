@@ -0,0 +1,56 @@
+import org.junit.Test;
+import ru.mail.park.services.AccountService;
+import ru.mail.park.simulation.GameSimulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs in the application context only so that the game settings are bound from the test properties.
+ */
+public class GameSimulationTest extends AccountServiceMockedTest {
+    private static final int GAMES = 2000;
+
+    @Test
+    public void outcomesDoNotDependOnThreads() throws Exception {
+        final GameSimulation.Result single = simulate(42, 1);
+        final GameSimulation.Result parallel = simulate(42, 4);
+        assertEquals(GAMES, single.getGames());
+        assertEquals(GAMES, parallel.getGames());
+        assertEquals(single.getMoves(), parallel.getMoves());
+        assertEquals(single.getSolverWins(), parallel.getSolverWins());
+        assertEquals(single.getChecksum(), parallel.getChecksum());
+        assertNotEquals(single.getChecksum(), simulate(43, 1).getChecksum());
+    }
+
+    @Test
+    public void everyGameIsPlayedToTheEnd() throws Exception {
+        final GameSimulation simulation = new GameSimulation(7, 2);
+        try {
+            final GameSimulation.Result result = simulation.run(GAMES);
+            assertEquals(GAMES, result.getGames());
+            assertTrue(result.getMoves() >= GAMES);
+            assertTrue(result.getMessages() >= 2 * result.getMoves());
+            assertTrue(result.getAllocatedBytes() > 0);
+            final AccountService accounts = simulation.getAccountService();
+            int rankTotal = 0;
+            for (int worker = 0; worker < 2; worker++) {
+                rankTotal += accounts.getUserByLogin("sim-" + worker + "-a").getRank();
+                rankTotal += accounts.getUserByLogin("sim-" + worker + "-b").getRank();
+            }
+            assertEquals(0, rankTotal);
+        } finally {
+            simulation.shutdown();
+        }
+    }
+
+    private static GameSimulation.Result simulate(long seed, int threads) throws InterruptedException {
+        final GameSimulation simulation = new GameSimulation(seed, threads);
+        try {
+            return simulation.run(GAMES);
+        } finally {
+            simulation.shutdown();
+        }
+    }
+}
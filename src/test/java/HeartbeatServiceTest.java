@@ -0,0 +1,92 @@
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import ru.mail.park.websocket.GameSocketHandler;
+import ru.mail.park.websocket.config.WebSocketSettings;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class HeartbeatServiceTest extends AccountServiceMockedTest {
+    private static final long INTERVAL_MS = 100;
+    private static final long TIMEOUT_MS = 400;
+    private final WebSocketSettings settings = new WebSocketSettings();
+    @Autowired
+    private GameSocketHandler gameSocketHandler;
+    private long interval;
+    private long timeout;
+    private NativeWebSocketSession webSocketSession;
+    private Session nativeSession;
+
+    @Before
+    @Override
+    public void init() throws Exception {
+        super.init();
+        interval = WebSocketSettings.getHeartbeatIntervalMs();
+        timeout = WebSocketSettings.getHeartbeatTimeoutMs();
+        settings.setHeartbeatIntervalMs(INTERVAL_MS);
+        settings.setHeartbeatTimeoutMs(TIMEOUT_MS);
+        accountService.addUser("silent", "password", "silent@mail.ru");
+        webSocketSession = mock(NativeWebSocketSession.class);
+        nativeSession = mock(Session.class);
+        final Map<String, Object> attributes = new HashMap<>();
+        attributes.put("login", "silent");
+        when(webSocketSession.getAttributes()).thenReturn(attributes);
+        when(webSocketSession.isOpen()).thenReturn(true);
+        when(webSocketSession.getNativeSession(Session.class)).thenReturn(nativeSession);
+        gameSocketHandler.afterConnectionEstablished(webSocketSession);
+    }
+
+    @After
+    public void restore() throws Exception {
+        gameSocketHandler.afterConnectionClosed(webSocketSession, CloseStatus.NORMAL);
+        settings.setHeartbeatIntervalMs(interval);
+        settings.setHeartbeatTimeoutMs(timeout);
+    }
+
+    @Test
+    public void silentConnectionIsPingedThenDropped() throws Exception {
+        verify(webSocketSession, timeout(TIMEOUT_MS).atLeastOnce()).sendMessage(any(PingMessage.class));
+        verify(nativeSession, never()).disconnect();
+        verify(nativeSession, timeout(4 * TIMEOUT_MS)).disconnect();
+    }
+
+    @Test
+    public void pongsKeepConnectionAlive() throws Exception {
+        keepAlive(new PongMessage());
+    }
+
+    @Test
+    public void messagesKeepConnectionAlive() throws Exception {
+        keepAlive(new TextMessage("{}"));
+    }
+
+    @Test
+    public void closedConnectionIsNoLongerWatched() throws Exception {
+        gameSocketHandler.afterConnectionClosed(webSocketSession, CloseStatus.NORMAL);
+        Thread.sleep(3 * TIMEOUT_MS);
+        verify(webSocketSession, never()).sendMessage(any());
+        verify(nativeSession, never()).disconnect();
+    }
+
+    private void keepAlive(WebSocketMessage<?> message) throws Exception {
+        final long until = System.currentTimeMillis() + 3 * TIMEOUT_MS;
+        while (System.currentTimeMillis() < until) {
+            gameSocketHandler.handleMessage(webSocketSession, message);
+            Thread.sleep(INTERVAL_MS / 4);
+        }
+        verify(webSocketSession, never()).sendMessage(any(PingMessage.class));
+        verify(nativeSession, never()).disconnect();
+    }
+}
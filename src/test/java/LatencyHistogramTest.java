@@ -0,0 +1,46 @@
+import org.junit.Test;
+import ru.mail.park.monitoring.LatencyHistogram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    public void smallLatenciesAreExact() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 10; micros++) {
+            histogram.record(micros);
+        }
+        final LatencyHistogram.Snapshot snapshot = histogram.drain();
+        assertEquals(10, snapshot.getCount());
+        assertEquals(5, snapshot.getPercentile(50));
+        assertEquals(10, snapshot.getPercentile(99));
+    }
+
+    @Test
+    public void percentilesWithinAnEighth() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 100000; micros++) {
+            histogram.record(micros);
+        }
+        final LatencyHistogram.Snapshot snapshot = histogram.drain();
+        assertWithinAnEighth(50000, snapshot.getPercentile(50));
+        assertWithinAnEighth(99000, snapshot.getPercentile(99));
+        assertWithinAnEighth(100000, snapshot.getPercentile(100));
+    }
+
+    @Test
+    public void drainStartsOver() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.record(-1);
+        assertEquals(2, histogram.drain().getCount());
+        final LatencyHistogram.Snapshot empty = histogram.drain();
+        assertEquals(0, empty.getCount());
+        assertEquals(0, empty.getPercentile(99));
+    }
+
+    private static void assertWithinAnEighth(long expected, long actual) {
+        assertTrue(expected + " ~ " + actual, actual >= expected && actual <= expected + expected / 8);
+    }
+}
@@ -4,15 +4,26 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.socket.WebSocketSession;
 import ru.mail.park.Application;
+import ru.mail.park.game.GameMechService;
 import ru.mail.park.game.messaging.GameJoin;
+import ru.mail.park.game.messaging.GameJoinHandler;
 import ru.mail.park.game.messaging.PlayerAction;
+import ru.mail.park.game.messaging.PlayerActionHandler;
 import ru.mail.park.game.messaging.ServerSnap;
+import ru.mail.park.model.UserProfile;
+import ru.mail.park.websocket.Connection;
+import ru.mail.park.websocket.HandleException;
+import ru.mail.park.websocket.MessageHandlerService;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
-import static org.junit.Assert.assertArrayEquals;
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = Application.class)
@@ -61,4 +72,100 @@ public class MessageDeserializationTest {
         assertEquals(true, snap.isGameOver());
         assertEquals(true, snap.isWin());
     }
+
+    @Test
+    public void decodesEscapedContent() throws Exception {
+        final List<PlayerAction> actions = new ArrayList<>();
+        final List<String> decoded = decodeActions(actions,
+                "{\"type\":\"PlayerAction\",\"content\":\"{\\\"row\\\":1,\\\"col\\\":2,\\\"positive\\\":true}\"}");
+        assertEquals("1 2 true", decoded.get(0));
+    }
+
+    @Test
+    public void decodesContentBeforeType() throws Exception {
+        final List<PlayerAction> actions = new ArrayList<>();
+        final List<String> decoded = decodeActions(actions,
+                "{\"content\":{\"row\":3,\"col\":4,\"positive\":false},\"type\":\"PlayerAction\"}",
+                "{\"type\":\"PlayerAction\",\"content\":{\"col\":5}}");
+        assertEquals("3 4 false", decoded.get(0));
+        assertEquals("0 5 false", decoded.get(1));
+        assertSame(actions.get(0), actions.get(1));
+    }
+
+    @Test
+    public void decodesOtherMessagesByDataBinding() throws Exception {
+        final MessageHandlerService messageHandlerService = new MessageHandlerService();
+        final GameMechService gameMechService = mock(GameMechService.class);
+        messageHandlerService.registerHandler(GameJoin.class, new GameJoinHandler(messageHandlerService,
+                gameMechService));
+        final Connection connection = connection();
+        messageHandlerService.handle("{\"type\":\"GameJoin\",\"content\":\"{}\"}", connection);
+        verify(gameMechService).addPlayer(connection);
+    }
+
+    @Test
+    public void rejectsMalformedMessages() throws Exception {
+        final MessageHandlerService messageHandlerService = new MessageHandlerService();
+        messageHandlerService.registerHandler(PlayerAction.class, new PlayerActionHandler(messageHandlerService,
+                mock(GameMechService.class)));
+        final String[] frames = {
+                "[]",
+                "{\"type\":\"Unknown\",\"content\":\"{}\"}",
+                "{\"type\":\"PlayerAction\"}",
+                "{\"type\":\"PlayerAction\",\"content\":{\"row\":1,\"cheat\":true}}",
+                "{\"type\":\"PlayerAction\",\"content\":\"{\"",
+        };
+        for (String frame : frames) {
+            try {
+                messageHandlerService.handle(frame, connection());
+                fail("decoded " + frame);
+            } catch (HandleException ignore) {
+            }
+        }
+    }
+
+    @Test
+    public void refusesRepeatedFieldsBeforeHandlingAnything() throws Exception {
+        final MessageHandlerService messageHandlerService = new MessageHandlerService();
+        final GameMechService gameMechService = mock(GameMechService.class);
+        messageHandlerService.registerHandler(PlayerAction.class, new PlayerActionHandler(messageHandlerService,
+                gameMechService));
+        final String[] frames = {
+                "{\"type\":\"PlayerAction\",\"content\":{\"row\":1},\"content\":{\"row\":2}}",
+                "{\"content\":{\"row\":1},\"type\":\"PlayerAction\",\"content\":{\"row\":2}}",
+                "{\"type\":\"PlayerAction\",\"content\":{\"row\":1},\"type\":\"PlayerAction\"}",
+                "{\"type\":\"PlayerAction\",\"content\":{\"row\":1}}{\"type\":\"PlayerAction\"}",
+        };
+        for (String frame : frames) {
+            try {
+                messageHandlerService.handle(frame, connection());
+                fail("decoded " + frame);
+            } catch (HandleException ignore) {
+            }
+        }
+        verify(gameMechService, never()).addPlayerAction(any(), any());
+    }
+
+    private List<String> decodeActions(List<PlayerAction> actions, String... frames) throws HandleException {
+        final MessageHandlerService messageHandlerService = new MessageHandlerService();
+        final GameMechService gameMechService = mock(GameMechService.class);
+        final List<String> decoded = new ArrayList<>();
+        doAnswer(invocationOnMock -> {
+            final PlayerAction action = (PlayerAction) invocationOnMock.getArguments()[1];
+            actions.add(action);
+            decoded.add(action.getRow() + " " + action.getCol() + ' ' + action.isPositive());
+            return null;
+        }).when(gameMechService).addPlayerAction(any(), any());
+        messageHandlerService.registerHandler(PlayerAction.class, new PlayerActionHandler(messageHandlerService,
+                gameMechService));
+        final Connection connection = connection();
+        for (String frame : frames) {
+            messageHandlerService.handle(frame, connection);
+        }
+        return decoded;
+    }
+
+    private static Connection connection() {
+        return new Connection(new UserProfile(1, "a", "b", "c", 0), mock(WebSocketSession.class));
+    }
 }
@@ -0,0 +1,53 @@
+import org.json.JSONObject;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.mail.park.main.ResponseCode;
+import ru.mail.park.services.config.SecuritySettings;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsControllerTest extends AccountServiceMockedTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void adminTokenRequired() {
+        assertEquals(ResponseCode.AUTH_ERROR.getCode(), metrics(null).getInt("code"));
+        assertEquals(ResponseCode.AUTH_ERROR.getCode(), metrics("wrong").getInt("code"));
+    }
+
+    @Test
+    public void servesMetrics() {
+        final JSONObject response = metrics(SecuritySettings.getAdminToken());
+        assertEquals(ResponseCode.OK.getCode(), response.getInt("code"));
+        final JSONObject content = response.getJSONObject("content");
+        assertTrue(content.has("websocket.compression.connections.negotiated"));
+        assertTrue(content.has("websocket.send.chars"));
+    }
+
+    @Test
+    public void actuatorEndpointsDisabled() {
+        for (String endpoint : new String[]{"/metrics", "/heapdump", "/env", "/dump", "/trace", "/configprops",
+                "/mappings"}) {
+            assertEquals(endpoint, HttpStatus.NOT_FOUND,
+                    restTemplate.getForEntity(endpoint, String.class).getStatusCode());
+        }
+    }
+
+    private JSONObject metrics(String token) {
+        final HttpHeaders headers = new HttpHeaders();
+        if (token != null) {
+            headers.set("X-Admin-Token", token);
+        }
+        final ResponseEntity<String> responseEntity = restTemplate.exchange("/api/admin/metrics", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+        return new JSONObject(responseEntity.getBody());
+    }
+}
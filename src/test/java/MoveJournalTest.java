@@ -0,0 +1,192 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import ru.mail.park.Application;
+import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.game.journal.EndReason;
+import ru.mail.park.game.journal.JournalReplay;
+import ru.mail.park.game.journal.MoveJournal;
+import ru.mail.park.game.journal.ReplayedGame;
+import ru.mail.park.game.mechanics.GameSession;
+import ru.mail.park.game.mechanics.Player;
+import ru.mail.park.game.mechanics.Square;
+import ru.mail.park.game.messaging.PlayerAction;
+import ru.mail.park.game.solver.Solver;
+import ru.mail.park.model.UserProfile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = Application.class)
+public class MoveJournalTest {
+    private static final int RECORDS_PER_SEGMENT = 10;
+    private Path directory;
+    private MoveJournal journal;
+    private SplittableRandom random = new SplittableRandom(3);
+
+    @Before
+    public void init() throws Exception {
+        directory = Files.createTempDirectory("journal");
+        journal = new MoveJournal();
+        journal.open(directory, RECORDS_PER_SEGMENT * 64);
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        journal.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void replaysGames() throws Exception {
+        final Solver solver = new Solver(1);
+        final GameSession won = newSession();
+        journal.started(won);
+        for (int i = 0; i < 5; i++) {
+            move(won, won.getSecond(), randomAction());
+        }
+        final List<PlayerAction> solution = solver.solve(won.getFirst().getSquare(), won.getTarget());
+        solver.shutdown();
+        assertNotNull(solution);
+        for (PlayerAction action : solution) {
+            move(won, won.getFirst(), action);
+        }
+        journal.ended(won, won.getFirst(), EndReason.WON);
+        final GameSession calledOff = newSession();
+        journal.started(calledOff);
+        move(calledOff, calledOff.getSecond(), randomAction());
+        journal.ended(calledOff, null, EndReason.CALLED_OFF);
+        final GameSession forfeited = newSession();
+        journal.started(forfeited);
+        move(forfeited, forfeited.getFirst(), randomAction());
+        journal.ended(forfeited, forfeited.getSecond(), EndReason.FORFEITED);
+        final GameSession unfinished = newSession();
+        journal.started(unfinished);
+        move(unfinished, unfinished.getFirst(), randomAction());
+        journal.close();
+
+        final Map<Long, ReplayedGame> games = JournalReplay.replay(directory);
+        assertEquals(4, games.size());
+        final ReplayedGame wonReplay = games.get(won.getId());
+        assertEquals(5 + solution.size(), wonReplay.getMoves());
+        assertTrue(wonReplay.isConsistent());
+        assertEquals(won.getFirst().getUser().getId(), wonReplay.getRecordedWinner().getUser().getId());
+        assertEquals(won.getSecond().getSquare(), wonReplay.getSession().getSecond().getSquare());
+        assertEquals(won.getTarget(), wonReplay.getSession().getTarget());
+        final ReplayedGame calledOffReplay = games.get(calledOff.getId());
+        assertTrue(calledOffReplay.isEnded());
+        assertNull(calledOffReplay.getRecordedWinner());
+        assertTrue(calledOffReplay.isConsistent());
+        final ReplayedGame forfeitedReplay = games.get(forfeited.getId());
+        assertEquals(EndReason.FORFEITED, forfeitedReplay.getEndReason());
+        assertEquals(forfeited.getSecond().getUser().getId(), forfeitedReplay.getRecordedWinner().getUser().getId());
+        assertTrue(forfeitedReplay.isConsistent());
+        assertFalse(games.get(unfinished.getId()).isEnded());
+        try (Stream<Path> segments = Files.list(directory)) {
+            assertTrue(segments.count() > 1);
+        }
+    }
+
+    @Test
+    public void concurrentGamesKeepTheirMoves() throws Exception {
+        final int gameCount = 8;
+        final int moveCount = 50;
+        final List<GameSession> sessions = new ArrayList<>();
+        for (int i = 0; i < gameCount; i++) {
+            sessions.add(newSession());
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (GameSession session : sessions) {
+            final SplittableRandom gameRandom = random.split();
+            executor.execute(() -> {
+                journal.started(session);
+                for (int i = 0; i < moveCount; i++) {
+                    final PlayerAction action = new PlayerAction();
+                    action.setRow(gameRandom.nextInt(GameSettings.getSquareSize()));
+                    action.setCol(gameRandom.nextInt(GameSettings.getSquareSize()));
+                    action.setPositive(gameRandom.nextBoolean());
+                    move(session, gameRandom.nextBoolean() ? session.getFirst() : session.getSecond(), action);
+                }
+                journal.ended(session, null, EndReason.CALLED_OFF);
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        journal.close();
+
+        final Map<Long, ReplayedGame> games = JournalReplay.replay(directory);
+        for (GameSession session : sessions) {
+            final ReplayedGame game = games.get(session.getId());
+            assertEquals(moveCount, game.getMoves());
+            assertEquals(session.getFirst().getSquare(), game.getSession().getFirst().getSquare());
+            assertEquals(session.getSecond().getSquare(), game.getSession().getSecond().getSquare());
+        }
+    }
+
+    @Test
+    public void restoredGamesReplayFromTheirCheckpoint() throws Exception {
+        final GameSession session = newSession();
+        journal.started(session);
+        move(session, session.getFirst(), randomAction());
+        final GameSession restored = new GameSession(session.getId(),
+                new Player(session.getFirst().getUser(), copy(session.getFirst().getSquare())),
+                new Player(session.getSecond().getUser(), copy(session.getSecond().getSquare())), session.getTarget());
+        for (int i = 0; i < 3; i++) {
+            move(session, session.getSecond(), randomAction());
+        }
+        journal.restored(restored);
+        for (int i = 0; i < 3; i++) {
+            move(restored, restored.getSecond(), randomAction());
+        }
+        journal.close();
+
+        final ReplayedGame game = JournalReplay.replay(directory).get(session.getId());
+        assertTrue(game.isRestored());
+        assertEquals(restored.getFirst().getSquare(), game.getSession().getFirst().getSquare());
+        assertEquals(restored.getSecond().getSquare(), game.getSession().getSecond().getSquare());
+    }
+
+    private static Square copy(Square square) {
+        final int[][] matrix = square.getMatrix();
+        final int[][] copy = new int[matrix.length][];
+        for (int i = 0; i < matrix.length; i++) {
+            copy[i] = matrix[i].clone();
+        }
+        return new Square(copy);
+    }
+
+    private GameSession newSession() {
+        return new GameSession(new Player(new UserProfile(1, "a", "b", "c", 0)),
+                new Player(new UserProfile(2, "q", "w", "e", 0)), new Square(GameSettings.getTargetScramble(), random));
+    }
+
+    private void move(GameSession session, Player player, PlayerAction action) {
+        session.processAction(player, action);
+        journal.moved(session, player, action);
+    }
+
+    private PlayerAction randomAction() {
+        final PlayerAction action = new PlayerAction();
+        action.setRow(random.nextInt(GameSettings.getSquareSize()));
+        action.setCol(random.nextInt(GameSettings.getSquareSize()));
+        action.setPositive(random.nextBoolean());
+        return action;
+    }
+}
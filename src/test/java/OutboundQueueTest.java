@@ -0,0 +1,108 @@
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import ru.mail.park.Application;
+import ru.mail.park.websocket.OutboundQueue;
+import ru.mail.park.websocket.config.WebSocketSettings;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = Application.class)
+public class OutboundQueueTest {
+    private NativeWebSocketSession webSocketSession;
+    private List<String> written = new ArrayList<>();
+    private List<WriteCallback> callbacks = new ArrayList<>();
+    private OutboundQueue outboundQueue;
+
+    @Before
+    public void init() {
+        webSocketSession = mock(NativeWebSocketSession.class);
+        final Session nativeSession = mock(Session.class);
+        final RemoteEndpoint remote = mock(RemoteEndpoint.class);
+        when(webSocketSession.isOpen()).thenReturn(true);
+        when(webSocketSession.getNativeSession(Session.class)).thenReturn(nativeSession);
+        when(nativeSession.getRemote()).thenReturn(remote);
+        doAnswer(invocationOnMock -> {
+            written.add((String) invocationOnMock.getArguments()[0]);
+            callbacks.add((WriteCallback) invocationOnMock.getArguments()[1]);
+            return null;
+        }).when(remote).sendString(anyString(), any(WriteCallback.class));
+        outboundQueue = new OutboundQueue(webSocketSession);
+    }
+
+    @Test
+    public void writesOneMessageAtATime() throws Exception {
+        outboundQueue.send("a", false);
+        outboundQueue.send("b", false);
+        assertEquals(1, written.size());
+        assertEquals(1, outboundQueue.getDepth());
+        completeWrite();
+        assertEquals(2, written.size());
+        assertEquals("b", written.get(1));
+    }
+
+    @Test
+    public void keepsOnlyLatestDroppable() throws Exception {
+        outboundQueue.send("snap-1", true);
+        outboundQueue.send("snap-2", true);
+        outboundQueue.send("snap-3", true);
+        outboundQueue.send("snap-4", true);
+        assertEquals(1, outboundQueue.getDepth());
+        completeWrite();
+        assertEquals("snap-4", written.get(1));
+    }
+
+    @Test
+    public void preservesGameOverSnap() throws Exception {
+        outboundQueue.send("snap-1", true);
+        outboundQueue.send("snap-2", true);
+        outboundQueue.send("game-over", false);
+        outboundQueue.send("snap-3", true);
+        assertEquals(2, outboundQueue.getDepth());
+        completeWrite();
+        completeWrite();
+        assertEquals("game-over", written.get(1));
+        assertEquals("snap-3", written.get(2));
+    }
+
+    @Test
+    public void closesAfterPendingMessages() throws Exception {
+        outboundQueue.send("a", false);
+        outboundQueue.send("b", false);
+        outboundQueue.close(CloseStatus.NORMAL);
+        assertFalse(outboundQueue.isOpen());
+        verify(webSocketSession, never()).close(any());
+        completeWrite();
+        completeWrite();
+        verify(webSocketSession).close(CloseStatus.NORMAL);
+    }
+
+    @Test
+    public void reliableOverflowDisconnects() throws Exception {
+        outboundQueue.send("in-flight", false);
+        for (int i = 0; i <= WebSocketSettings.getSendQueueCapacity(); i++) {
+            outboundQueue.send("message-" + i, false);
+        }
+        verify(webSocketSession).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertFalse(outboundQueue.isOpen());
+    }
+
+    private void completeWrite() {
+        callbacks.get(callbacks.size() - 1).writeSuccess();
+    }
+}
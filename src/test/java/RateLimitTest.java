@@ -0,0 +1,105 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.websocket.Connection;
+import ru.mail.park.websocket.GameSocketHandler;
+import ru.mail.park.websocket.InboundLimitMetrics;
+import ru.mail.park.websocket.RateLimitPolicy;
+import ru.mail.park.websocket.TokenBucket;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class RateLimitTest extends AccountServiceMockedTest {
+    private static final int BURST = 3;
+    private static final TextMessage ACTION = new TextMessage(
+            "{\"type\":\"PlayerAction\",\"content\":\"{\\\"row\\\":0,\\\"col\\\":0,\\\"positive\\\":true}\"}");
+    private final GameSettings settings = new GameSettings();
+    @Autowired
+    private GameSocketHandler gameSocketHandler;
+    @Autowired
+    private InboundLimitMetrics inboundLimitMetrics;
+    private double rate;
+    private int burst;
+    private RateLimitPolicy policy;
+    private WebSocketSession webSocketSession;
+
+    @Before
+    @Override
+    public void init() throws Exception {
+        super.init();
+        rate = GameSettings.getActionRate();
+        burst = GameSettings.getActionBurst();
+        policy = GameSettings.getActionLimitPolicy();
+        settings.setActionRate(0.001);
+        settings.setActionBurst(BURST);
+        accountService.addUser("flooder", "password", "flooder@mail.ru");
+        webSocketSession = mock(WebSocketSession.class);
+        final Map<String, Object> attributes = new HashMap<>();
+        when(webSocketSession.getAttributes()).thenReturn(attributes);
+        when(webSocketSession.isOpen()).thenReturn(true);
+        attributes.put(Connection.ATTRIBUTE, new Connection(users.get(users.size() - 1), webSocketSession));
+    }
+
+    @After
+    public void restore() {
+        settings.setActionRate(rate);
+        settings.setActionBurst(burst);
+        settings.setActionLimitPolicy(policy);
+    }
+
+    @Test
+    public void bucketRefillsOverTime() {
+        final long start = 0;
+        final TokenBucket bucket = new TokenBucket(10, 2, start);
+        assertTrue(bucket.tryAcquire(start));
+        assertTrue(bucket.tryAcquire(start));
+        assertFalse(bucket.tryAcquire(start));
+        assertFalse(bucket.tryAcquire(start + TimeUnit.MILLISECONDS.toNanos(50)));
+        assertTrue(bucket.tryAcquire(start + TimeUnit.MILLISECONDS.toNanos(100)));
+        assertTrue(bucket.tryAcquire(start + TimeUnit.SECONDS.toNanos(10)));
+        assertTrue(bucket.tryAcquire(start + TimeUnit.SECONDS.toNanos(10)));
+        assertFalse(bucket.tryAcquire(start + TimeUnit.SECONDS.toNanos(10)));
+    }
+
+    @Test
+    public void dropsMessagesOverTheLimit() throws Exception {
+        settings.setActionLimitPolicy(RateLimitPolicy.DROP);
+        final long limited = metric("websocket.inbound.limited");
+        for (int i = 0; i < BURST + 10; i++) {
+            gameSocketHandler.handleMessage(webSocketSession, ACTION);
+        }
+        assertEquals(limited + 10, metric("websocket.inbound.limited"));
+        verify(webSocketSession, never()).close(any());
+    }
+
+    @Test
+    public void disconnectsFloodingClient() throws Exception {
+        settings.setActionLimitPolicy(RateLimitPolicy.DISCONNECT);
+        final long disconnects = metric("websocket.inbound.limit-disconnects");
+        for (int i = 0; i < BURST + 10; i++) {
+            gameSocketHandler.handleMessage(webSocketSession, ACTION);
+        }
+        assertEquals(disconnects + 1, metric("websocket.inbound.limit-disconnects"));
+        verify(webSocketSession).close(CloseStatus.POLICY_VIOLATION);
+    }
+
+    private long metric(String name) {
+        for (Metric<?> metric : inboundLimitMetrics.metrics()) {
+            if (metric.getName().equals(name)) {
+                return metric.getValue().longValue();
+            }
+        }
+        throw new AssertionError("no metric " + name);
+    }
+}
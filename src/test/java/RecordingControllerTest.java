@@ -0,0 +1,73 @@
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+import ru.mail.park.Application;
+import ru.mail.park.main.ResponseCode;
+import ru.mail.park.services.HashingService;
+import ru.mail.park.services.config.SecuritySettings;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings("SpringJavaAutowiredMembersInspection")
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = Application.class)
+public class RecordingControllerTest extends AccountServiceMockedTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private HashingService hashingService;
+
+    @Test
+    public void adminTokenRequired() {
+        assertEquals(ResponseCode.AUTH_ERROR.getCode(), recording(HttpMethod.GET, null).getInt("code"));
+        assertEquals(ResponseCode.AUTH_ERROR.getCode(), recording(HttpMethod.POST, "wrong").getInt("code"));
+    }
+
+    @Test
+    public void recordsGameEvents() throws Exception {
+        final String token = SecuritySettings.getAdminToken();
+        final JSONObject started = recording(HttpMethod.POST, token);
+        assertEquals(ResponseCode.OK.getCode(), started.getInt("code"));
+        assertTrue(started.getJSONObject("content").getBoolean("recording"));
+        assertTrue(recording(HttpMethod.GET, token).getJSONObject("content").getBoolean("recording"));
+
+        hashingService.encode("password").join();
+
+        final JSONObject stopped = recording(HttpMethod.DELETE, token);
+        assertEquals(ResponseCode.OK.getCode(), stopped.getInt("code"));
+        assertFalse(recording(HttpMethod.GET, token).getJSONObject("content").getBoolean("recording"));
+        final Path file = Paths.get(stopped.getJSONObject("content").getString("file"));
+        try {
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertTrue(events.stream().anyMatch(event -> "ru.mail.park.PasswordHash".equals(event.getEventType()
+                    .getName()) && "encode".equals(event.getString("operation"))));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private JSONObject recording(HttpMethod method, String token) {
+        final HttpHeaders headers = new HttpHeaders();
+        if (token != null) {
+            headers.set("X-Admin-Token", token);
+        }
+        final ResponseEntity<String> responseEntity = restTemplate.exchange("/api/admin/recording", method,
+                new HttpEntity<>(headers), String.class);
+        return new JSONObject(responseEntity.getBody());
+    }
+}
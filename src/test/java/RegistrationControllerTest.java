@@ -10,8 +10,15 @@ import org.springframework.test.context.junit4.SpringRunner;
 import ru.mail.park.Application;
 import ru.mail.park.main.ResponseCode;
 import ru.mail.park.model.UserProfile;
+import ru.mail.park.services.HashingService;
+import ru.mail.park.services.config.SecuritySettings;
+
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 
 @SuppressWarnings("SpringJavaAutowiredMembersInspection")
 @RunWith(SpringRunner.class)
@@ -19,6 +26,8 @@ import static org.junit.Assert.assertEquals;
 public class RegistrationControllerTest extends AccountServiceMockedTest {
     @Autowired
     private TestRestTemplate restTemplate;
+    @Autowired
+    private HashingService hashingService;
 
     @Before
     @Override
@@ -50,6 +59,14 @@ public class RegistrationControllerTest extends AccountServiceMockedTest {
         assertEquals(ResponseCode.DUPLICATE_USER.getMessage(), body.getString("content"));
     }
 
+    @Test
+    public void botLoginIsReserved() {
+        final ResponseEntity<String> responseEntity = postUser("Bot", "new", "new");
+        final JSONObject body = new JSONObject(responseEntity.getBody());
+        assertEquals(ResponseCode.DUPLICATE_USER.getCode(), body.getInt("code"));
+        assertNull(accountService.getUserByLogin("Bot"));
+    }
+
     @Test
     public void addUserWithExistingEmail() {
         final ResponseEntity<String> responseEntity = postUser("new", "new", "c");
@@ -104,6 +121,56 @@ public class RegistrationControllerTest extends AccountServiceMockedTest {
         assertEquals(ResponseCode.PARAMETER_MISSING.getMessage(), body.getString("content"));
     }
 
+    @Test
+    public void loginIssuesBearerToken() {
+        final JSONObject content = new JSONObject(postSession("a", "b").getBody()).getJSONObject("content");
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, "Bearer " + content.getString("token"));
+        final ResponseEntity<String> responseEntity = restTemplate.exchange("/api/session", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+        final JSONObject body = new JSONObject(responseEntity.getBody());
+        assertEquals(ResponseCode.OK.getCode(), body.getInt("code"));
+        assertEquals("a", body.getJSONObject("content").getString("login"));
+    }
+
+    @Test
+    public void badBearerToken() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, "Bearer garbage");
+        final ResponseEntity<String> responseEntity = restTemplate.exchange("/api/session", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+        final JSONObject body = new JSONObject(responseEntity.getBody());
+        assertEquals(ResponseCode.AUTH_ERROR.getCode(), body.getInt("code"));
+    }
+
+    @Test
+    public void loginShedWhenHashingIsBusy() throws Exception {
+        final CountDownLatch busy = new CountDownLatch(SecuritySettings.getHashThreads());
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocationOnMock -> {
+            busy.countDown();
+            release.await();
+            return true;
+        }).when(securityService).matches(any(), any());
+        try {
+            for (int i = 0; i < SecuritySettings.getHashThreads(); i++) {
+                hashingService.matches("b", "b");
+            }
+            busy.await();
+            for (int i = 0; i < SecuritySettings.getHashQueueCapacity(); i++) {
+                hashingService.matches("b", "b");
+            }
+            final ResponseEntity<String> responseEntity = postSession("a", "b");
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, responseEntity.getStatusCode());
+            assertEquals("1", responseEntity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+            final JSONObject body = new JSONObject(responseEntity.getBody());
+            assertEquals(ResponseCode.OVERLOADED.getCode(), body.getInt("code"));
+            assertEquals(ResponseCode.OVERLOADED.getMessage(), body.getString("content"));
+        } finally {
+            release.countDown();
+        }
+    }
+
     private ResponseEntity<String> postUser(String login, String password, String email) {
         final JSONObject request = new JSONObject();
         if (login != null) {
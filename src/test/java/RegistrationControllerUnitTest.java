@@ -1,5 +1,6 @@
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpSession;
@@ -7,16 +8,30 @@ import ru.mail.park.main.ApiResponse;
 import ru.mail.park.main.RegistrationController;
 import ru.mail.park.main.ResponseCode;
 import ru.mail.park.model.UserProfile;
+import ru.mail.park.services.HashingService;
+import ru.mail.park.services.SessionTokenService;
+import ru.mail.park.services.UserNameFilter;
 
 import javax.servlet.http.HttpSession;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.Assert.*;
 
+@SuppressWarnings("SpringJavaAutowiredMembersInspection")
 public class RegistrationControllerUnitTest extends AccountServiceMockedTest {
+    @Autowired
+    private HashingService hashingService;
+    @Autowired
+    private SessionTokenService sessionTokenService;
+    @Autowired
+    private UserNameFilter userNameFilter;
     private boolean initialized = false;
     private HttpSession session;
     private RegistrationController registrationController;
@@ -36,11 +51,13 @@ public class RegistrationControllerUnitTest extends AccountServiceMockedTest {
     public void init() throws Exception {
         super.init();
         if (!initialized) {
-            registrationController = new RegistrationController(accountService, securityService);
+            registrationController = new RegistrationController(accountService, hashingService, sessionTokenService,
+                    userNameFilter);
             Class<?>[] declaredClasses = RegistrationController.class.getDeclaredClasses();
             try {
-                sessionAuthMethod = RegistrationController.class.getMethod("sessionAuth", HttpSession.class);
-                logoutMethod = RegistrationController.class.getMethod("logout", HttpSession.class);
+                sessionAuthMethod = RegistrationController.class.getMethod("sessionAuth", String.class,
+                        HttpSession.class);
+                logoutMethod = RegistrationController.class.getMethod("logout", String.class, HttpSession.class);
                 for (Class c : declaredClasses) {
                     if ("AuthRequest".equals(c.getSimpleName())) {
                         authRequestClass = c;
@@ -278,7 +295,7 @@ public class RegistrationControllerUnitTest extends AccountServiceMockedTest {
     private ResponseEntity postUser(String login, String password, String email) {
         try {
             Object request = regRequestConstructor.newInstance(login, password, email);
-            return (ResponseEntity) signupMethod.invoke(registrationController, request);
+            return await(signupMethod.invoke(registrationController, request));
         } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
             e.printStackTrace();
             return null;
@@ -288,7 +305,7 @@ public class RegistrationControllerUnitTest extends AccountServiceMockedTest {
     private ResponseEntity postSession(String login, String password) {
         try {
             Object request = authRequestConstructor.newInstance(login, password);
-            return (ResponseEntity) authMethod.invoke(registrationController, request, session);
+            return await(authMethod.invoke(registrationController, request, session));
         } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
             e.printStackTrace();
             return null;
@@ -297,7 +314,7 @@ public class RegistrationControllerUnitTest extends AccountServiceMockedTest {
 
     private ResponseEntity getSession() {
         try {
-            return (ResponseEntity) sessionAuthMethod.invoke(registrationController, session);
+            return (ResponseEntity) sessionAuthMethod.invoke(registrationController, null, session);
         } catch (IllegalAccessException | InvocationTargetException e) {
             e.printStackTrace();
             return null;
@@ -306,13 +323,22 @@ public class RegistrationControllerUnitTest extends AccountServiceMockedTest {
 
     private ResponseEntity deleteSession() {
         try {
-            return (ResponseEntity) logoutMethod.invoke(registrationController, session);
+            return (ResponseEntity) logoutMethod.invoke(registrationController, null, session);
         } catch (IllegalAccessException | InvocationTargetException e) {
             e.printStackTrace();
             return null;
         }
     }
 
+    private ResponseEntity await(Object response) {
+        try {
+            return ((CompletableFuture<?>) response).thenApply(ResponseEntity.class::cast).get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
     private String getSuccessResponseLogin(Object successResponse) {
         try {
             return (String) successResponseLoginField.get(successResponse);
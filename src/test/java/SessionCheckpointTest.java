@@ -0,0 +1,131 @@
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import ru.mail.park.game.GameMechService;
+import ru.mail.park.game.checkpoint.SessionCheckpointer;
+import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.game.mechanics.GameSession;
+import ru.mail.park.game.messaging.PlayerAction;
+import ru.mail.park.model.UserProfile;
+import ru.mail.park.websocket.Connection;
+import ru.mail.park.websocket.Message;
+import ru.mail.park.websocket.RemotePointService;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+public class SessionCheckpointTest extends AccountServiceMockedTest {
+    @MockBean
+    private RemotePointService remotePointService;
+    @Autowired
+    private GameMechService gameMechService;
+    @Autowired
+    private SessionCheckpointer checkpointer;
+    private Path directory;
+    private List<Message> firstMessages = new ArrayList<>();
+    private Map<?, ?> sessions;
+
+    @Override
+    public void init() throws Exception {
+        super.init();
+        directory = Files.createTempDirectory("checkpoint");
+        when(remotePointService.isConnected(any())).thenReturn(true);
+        when(remotePointService.isCurrent(any())).thenReturn(true);
+        doAnswer(invocationOnMock -> {
+            final Object[] args = invocationOnMock.getArguments();
+            if (((Connection) args[0]).getUserProfile() == users.get(0)) {
+                firstMessages.add((Message) args[1]);
+            }
+            return null;
+        }).when(remotePointService).send(any(), any(), anyBoolean());
+        final Field sessionsField = GameMechService.class.getDeclaredField("sessions");
+        sessionsField.setAccessible(true);
+        sessions = (Map<?, ?>) sessionsField.get(gameMechService);
+        sessions.clear();
+        if (users.isEmpty()) {
+            accountService.addUser("checkpoint0", "password0", "checkpoint0@mail.ru");
+            accountService.addUser("checkpoint1", "password1", "checkpoint1@mail.ru");
+        }
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        sessions.clear();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void restoresLatestState() throws Exception {
+        final Connection first = startGame();
+        final GameSession session = first.getGameSession();
+        assertEquals(1, checkpointer.checkpoint(directory));
+        gameMechService.addPlayerAction(first, action(2, 3));
+        assertEquals(1, checkpointer.checkpoint(directory));
+        final int[][] firstSquare = session.getFirst().getSquare().getMatrix();
+        final int[][] secondSquare = session.getSecond().getSquare().getMatrix();
+        sessions.clear();
+
+        assertEquals(1, checkpointer.restore(directory.resolve("sessions.checkpoint")));
+        final GameSession restored = gameMechService.getSessions().iterator().next();
+        assertEquals(session.getId(), restored.getId());
+        assertEquals(session.getTarget(), restored.getTarget());
+        assertArrayEquals(firstSquare, restored.getFirst().getSquare().getMatrix());
+        assertArrayEquals(secondSquare, restored.getSecond().getSquare().getMatrix());
+        assertEquals(users.get(0).getLogin(), restored.getFirst().getUser().getLogin());
+    }
+
+    @Test
+    public void reconnectedPlayerWinsAbandonedGame() throws Exception {
+        startGame();
+        checkpointer.checkpoint(directory);
+        sessions.clear();
+        checkpointer.restore(directory.resolve("sessions.checkpoint"));
+        firstMessages.clear();
+
+        final Connection reconnected = new Connection(users.get(0), null);
+        gameMechService.handleConnect(reconnected);
+        assertNotNull(reconnected.getGameSession());
+        assertEquals(1, firstMessages.size());
+        assertFalse(new JSONObject(firstMessages.get(0).getContent()).getBoolean("gameOver"));
+
+        Thread.sleep(GameSettings.getReconnectGraceMs() + 500);
+        assertTrue(sessions.isEmpty());
+        final JSONObject last = new JSONObject(firstMessages.get(firstMessages.size() - 1).getContent());
+        assertTrue(last.getBoolean("gameOver"));
+        assertTrue(last.getBoolean("win"));
+    }
+
+    private Connection startGame() throws Exception {
+        final Connection first = new Connection(users.get(0), null);
+        final Connection second = new Connection(users.get(1), null);
+        gameMechService.addPlayer(first);
+        gameMechService.addPlayer(second);
+        assertNotNull(first.getGameSession());
+        gameMechService.addPlayerAction(second, action(5, 5));
+        return first;
+    }
+
+    private static PlayerAction action(int row, int col) {
+        final PlayerAction action = new PlayerAction();
+        action.setRow(row);
+        action.setCol(col);
+        action.setPositive(true);
+        return action;
+    }
+}
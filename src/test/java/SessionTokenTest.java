@@ -0,0 +1,101 @@
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit4.SpringRunner;
+import ru.mail.park.Application;
+import ru.mail.park.model.UserProfile;
+import ru.mail.park.services.SessionToken;
+import ru.mail.park.services.SessionTokenService;
+import ru.mail.park.services.config.SecuritySettings;
+import ru.mail.park.websocket.SessionTokenHandshakeInterceptor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings("SpringJavaAutowiredMembersInspection")
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = Application.class)
+public class SessionTokenTest {
+    @Autowired
+    private SessionTokenService sessionTokenService;
+
+    @Test
+    public void verifiesIssuedToken() {
+        final SessionToken sessionToken = sessionTokenService.verify(sessionTokenService.issue(user()));
+        assertNotNull(sessionToken);
+        assertEquals(42, sessionToken.getUserId());
+        assertEquals("игрок", sessionToken.getLogin());
+        assertEquals(1025, sessionToken.getRank());
+        assertEquals(42, sessionToken.toUserProfile().getId());
+    }
+
+    @Test
+    public void rejectsForgedTokens() {
+        final String token = sessionTokenService.issue(user());
+        final String forged = sessionTokenService.issue(new UserProfile(43, "other", "e", "p", 0));
+        final int separator = token.indexOf('.');
+        assertNull(sessionTokenService.verify(forged.substring(0, forged.indexOf('.')) + token.substring(separator)));
+        assertNull(sessionTokenService.verify(token.substring(0, separator) + ".AAAA"));
+        assertNull(sessionTokenService.verify(token.substring(0, separator)));
+        assertNull(sessionTokenService.verify("garbage.!!"));
+        assertNull(sessionTokenService.verify(null));
+    }
+
+    @Test
+    public void rejectsExpiredTokens() {
+        final long ttl = SecuritySettings.getTokenTtlMs();
+        final SecuritySettings settings = new SecuritySettings();
+        settings.setTokenTtlMs(-1);
+        try {
+            assertNull(sessionTokenService.verify(sessionTokenService.issue(user())));
+        } finally {
+            settings.setTokenTtlMs(ttl);
+        }
+    }
+
+    @Test
+    public void handshakeTakesTokenFromQuery() {
+        final Map<String, Object> attributes = new HashMap<>();
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/game");
+        request.setQueryString("compress=false&token=" + sessionTokenService.issue(user()));
+        assertTrue(handshake(request, new MockHttpServletResponse(), attributes));
+        assertEquals("игрок", ((SessionToken) attributes.get(SessionToken.ATTRIBUTE)).getLogin());
+    }
+
+    @Test
+    public void handshakeRefusesBadToken() {
+        final Map<String, Object> attributes = new HashMap<>();
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/game");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer garbage");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(handshake(request, response, attributes));
+        assertEquals(HttpStatus.UNAUTHORIZED.value(), response.getStatus());
+        assertTrue(attributes.isEmpty());
+    }
+
+    @Test
+    public void handshakeWithoutTokenFallsThrough() {
+        final Map<String, Object> attributes = new HashMap<>();
+        assertTrue(handshake(new MockHttpServletRequest("GET", "/game"), new MockHttpServletResponse(), attributes));
+        assertTrue(attributes.isEmpty());
+    }
+
+    private boolean handshake(MockHttpServletRequest request, MockHttpServletResponse response,
+                              Map<String, Object> attributes) {
+        return new SessionTokenHandshakeInterceptor(sessionTokenService).beforeHandshake(
+                new ServletServerHttpRequest(request), new ServletServerHttpResponse(response), null, attributes);
+    }
+
+    private static UserProfile user() {
+        return new UserProfile(42, "игрок", "e", "p", 1025);
+    }
+}
@@ -0,0 +1,83 @@
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import ru.mail.park.Application;
+import ru.mail.park.game.mechanics.GameSession;
+import ru.mail.park.game.mechanics.Player;
+import ru.mail.park.game.mechanics.Square;
+import ru.mail.park.game.messaging.PlayerAction;
+import ru.mail.park.game.solver.Solver;
+import ru.mail.park.model.UserProfile;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = Application.class)
+public class SolverTest {
+    @Autowired
+    private Solver solver;
+
+    @Test
+    public void solvedSquareNeedsNoMoves() {
+        assertEquals(0, solver.rate(new Square()));
+    }
+
+    @Test
+    public void findsShortestSolution() {
+        final Square target = new Square();
+        target.activate(1, 2, 2, 1);
+        target.activate(3, 4, 2, 1);
+        target.activate(3, 4, 2, 1);
+        final List<PlayerAction> solution = solver.solve(new Square(), target);
+        assertEquals(3, solution.size());
+        assertEquals(target, replay(new Square(), solution));
+    }
+
+    @Test
+    public void solvesScrambledTargets() {
+        final SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 20; i++) {
+            final Square target = new Square(3, random);
+            final List<PlayerAction> solution = solver.solve(new Square(), target);
+            assertTrue(solution.size() <= 3);
+            assertEquals(target, replay(new Square(), solution));
+        }
+    }
+
+    @Test
+    public void solvesWithNegativeMoves() {
+        final Square from = new Square();
+        from.activate(5, 5, 2, 1);
+        final List<PlayerAction> solution = solver.solve(from, new Square());
+        assertEquals(1, solution.size());
+        assertFalse(solution.get(0).isPositive());
+    }
+
+    @Test
+    public void hintStartsShortestSolution() {
+        final Player player = new Player(new UserProfile("a", "b", "c"));
+        final Square target = new Square();
+        target.activate(6, 1, 2, 1);
+        final GameSession session = new GameSession(player, new Player(new UserProfile("q", "w", "e")), target);
+        final PlayerAction hint = solver.hint(session, player);
+        assertEquals(6, hint.getRow());
+        assertEquals(1, hint.getCol());
+        assertTrue(hint.isPositive());
+    }
+
+    private static Square replay(Square square, List<PlayerAction> actions) {
+        for (PlayerAction action : actions) {
+            if (action.isPositive()) {
+                square.activate(action.getRow(), action.getCol(), 2, 1);
+            } else {
+                square.activate(action.getRow(), action.getCol(), -2, -1);
+            }
+        }
+        return square;
+    }
+}
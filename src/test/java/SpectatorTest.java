@@ -0,0 +1,179 @@
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import ru.mail.park.game.GameMechService;
+import ru.mail.park.game.mechanics.GameSession;
+import ru.mail.park.game.messaging.PlayerAction;
+import ru.mail.park.model.UserProfile;
+import ru.mail.park.websocket.Connection;
+import ru.mail.park.websocket.RemotePointService;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class SpectatorTest extends AccountServiceMockedTest {
+    private static final int SPECTATOR_COUNT = 5;
+    @Autowired
+    private GameMechService gameMechService;
+    @Autowired
+    private RemotePointService remotePointService;
+    private Map<Connection, List<String>> written = new HashMap<>();
+    private List<Connection> connections = new ArrayList<>();
+
+    @Override
+    public void init() throws Exception {
+        super.init();
+        for (int i = 0; i < 2 + SPECTATOR_COUNT; i++) {
+            accountService.addUser("spectate" + i, "password" + i, "spectate" + i + "@mail.ru");
+        }
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        connections.forEach(remotePointService::unregister);
+        final Field sessionsField = GameMechService.class.getDeclaredField("sessions");
+        sessionsField.setAccessible(true);
+        ((Map<?, ?>) sessionsField.get(gameMechService)).clear();
+    }
+
+    @Test
+    public void spectatorsShareOneEncodedSnap() throws Exception {
+        final Connection first = connect(users.get(0), true);
+        final Connection second = connect(users.get(1), true);
+        gameMechService.addPlayer(first);
+        gameMechService.addPlayer(second);
+        final List<Connection> spectators = new ArrayList<>();
+        for (int i = 0; i < SPECTATOR_COUNT; i++) {
+            final Connection spectator = connect(users.get(2 + i), true);
+            assertTrue(gameMechService.addSpectator(spectator, users.get(1)));
+            spectators.add(spectator);
+        }
+        gameMechService.addPlayerAction(first, new PlayerAction());
+
+        final String snap = last(spectators.get(0));
+        final JSONObject content = new JSONObject(new JSONObject(snap).getString("content"));
+        assertEquals(users.get(0).getLogin(), content.getString("player"));
+        for (Connection spectator : spectators) {
+            assertEquals(2, written.get(spectator).size());
+            assertSame(snap, last(spectator));
+        }
+        assertFalse(gameMechService.addSpectator(connect(users.get(2), true), users.get(2)));
+    }
+
+    @Test
+    public void slowSpectatorDoesNotHoldUpPlayers() throws Exception {
+        final Connection first = connect(users.get(0), true);
+        final Connection second = connect(users.get(1), true);
+        gameMechService.addPlayer(first);
+        gameMechService.addPlayer(second);
+        final Connection slow = connect(users.get(2), false);
+        gameMechService.addSpectator(slow, users.get(0));
+        final int moves = 100;
+        for (int i = 0; i < moves; i++) {
+            gameMechService.addPlayerAction(first, new PlayerAction());
+        }
+        assertEquals(1 + moves, written.get(first).size());
+        assertEquals(1, written.get(slow).size());
+        assertTrue(slow.getOutboundQueue().getDepth() <= 1);
+        assertTrue(slow.getOutboundQueue().isOpen());
+    }
+
+    @Test
+    public void spectatorsSeeGameOver() throws Exception {
+        final Connection first = connect(users.get(0), true);
+        final Connection second = connect(users.get(1), true);
+        gameMechService.addPlayer(first);
+        gameMechService.addPlayer(second);
+        final Connection spectator = connect(users.get(2), true);
+        assertTrue(gameMechService.addSpectator(spectator, users.get(0)));
+        final GameSession session = first.getGameSession();
+        gameMechService.handleDisconnect(first);
+        final long deadline = System.currentTimeMillis() + 5000;
+        JSONObject content = lastContent(spectator);
+        while (!content.getBoolean("gameOver") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            content = lastContent(spectator);
+        }
+        assertTrue(session.isOver());
+        assertTrue(content.getBoolean("gameOver"));
+        assertEquals(users.get(0).getLogin(), content.getString("player"));
+        assertFalse(content.getBoolean("win"));
+        assertNull(spectator.getWatching());
+    }
+
+    @Test
+    public void playersCannotSpectate() throws Exception {
+        final Connection first = connect(users.get(0), true);
+        final Connection second = connect(users.get(1), true);
+        gameMechService.addPlayer(first);
+        gameMechService.addPlayer(second);
+        final GameSession session = first.getGameSession();
+        final Connection spectator = connect(users.get(2), true);
+        assertTrue(gameMechService.addSpectator(spectator, users.get(0)));
+        gameMechService.handleDisconnect(spectator);
+        assertTrue(session.getSpectators().isEmpty());
+
+        assertTrue(gameMechService.addSpectator(spectator, users.get(0)));
+        gameMechService.addPlayer(spectator);
+        assertNull(spectator.getWatching());
+        assertTrue(session.getSpectators().isEmpty());
+        assertFalse(gameMechService.addSpectator(spectator, users.get(0)));
+        assertTrue(session.getSpectators().isEmpty());
+        gameMechService.handleDisconnect(spectator);
+
+        final Connection third = connect(users.get(3), true);
+        final Connection fourth = connect(users.get(4), true);
+        gameMechService.addPlayer(third);
+        gameMechService.addPlayer(fourth);
+        final Connection reconnected = connect(users.get(3), true);
+        assertTrue(gameMechService.addSpectator(reconnected, users.get(0)));
+        gameMechService.handleConnect(reconnected);
+        assertNotNull(reconnected.getGameSession());
+        assertNull(reconnected.getWatching());
+        assertTrue(session.getSpectators().isEmpty());
+    }
+
+    private Connection connect(UserProfile user, boolean fast) {
+        final NativeWebSocketSession webSocketSession = mock(NativeWebSocketSession.class);
+        final Session nativeSession = mock(Session.class);
+        final RemoteEndpoint remote = mock(RemoteEndpoint.class);
+        when(webSocketSession.isOpen()).thenReturn(true);
+        when(webSocketSession.getNativeSession(Session.class)).thenReturn(nativeSession);
+        when(nativeSession.getRemote()).thenReturn(remote);
+        final Connection connection = new Connection(user, webSocketSession);
+        written.put(connection, Collections.synchronizedList(new ArrayList<>()));
+        doAnswer(invocationOnMock -> {
+            written.get(connection).add((String) invocationOnMock.getArguments()[0]);
+            if (fast) {
+                ((WriteCallback) invocationOnMock.getArguments()[1]).writeSuccess();
+            }
+            return null;
+        }).when(remote).sendString(anyString(), any(WriteCallback.class));
+        remotePointService.register(connection);
+        connections.add(connection);
+        return connection;
+    }
+
+    private String last(Connection connection) {
+        final List<String> messages = written.get(connection);
+        return messages.get(messages.size() - 1);
+    }
+
+    private JSONObject lastContent(Connection connection) {
+        return new JSONObject(new JSONObject(last(connection)).getString("content"));
+    }
+}
@@ -0,0 +1,48 @@
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import ru.mail.park.Application;
+import ru.mail.park.game.mechanics.Square;
+import ru.mail.park.game.solver.CatalogueGenerator;
+import ru.mail.park.game.solver.Solver;
+import ru.mail.park.game.solver.TargetCatalogue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = Application.class)
+public class TargetCatalogueTest {
+    @Autowired
+    private Solver solver;
+
+    @Test
+    public void targetsHaveTheirDifficulty() throws Exception {
+        final Path file = Files.createTempFile("targets", ".bin");
+        try {
+            final int[] counts = CatalogueGenerator.generate(file, 200, 4, new SplittableRandom(1), solver);
+            assertEquals(200, Arrays.stream(counts).sum());
+            try (TargetCatalogue catalogue = new TargetCatalogue(file)) {
+                assertEquals(counts.length - 1, catalogue.getMaxDifficulty());
+                for (int difficulty = 0; difficulty < counts.length; difficulty++) {
+                    assertEquals(counts[difficulty], catalogue.count(difficulty));
+                    for (int i = 0; i < counts[difficulty]; i++) {
+                        assertEquals(difficulty, solver.rate(catalogue.get(difficulty, i)));
+                    }
+                }
+                assertTrue(catalogue.count(3) > 0);
+                final Square picked = catalogue.pick(3, new SplittableRandom(2));
+                assertEquals(3, solver.rate(picked));
+                assertNull(catalogue.pick(counts.length, new SplittableRandom(2)));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import ru.mail.park.Application;
+import ru.mail.park.game.TargetPool;
+import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.game.mechanics.Square;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = Application.class)
+public class TargetPoolTest {
+    @Autowired
+    private TargetPool targetPool;
+
+    @Test
+    public void targetsAreScrambled() {
+        for (int i = 0; i < 2 * GameSettings.getTargetPoolSize(); i++) {
+            assertNotEquals(new Square(), targetPool.take());
+        }
+    }
+
+    @Test
+    public void sameSeedSameTargets() {
+        final Long previousSeed = GameSettings.getRandomSeed();
+        new GameSettings().setRandomSeed(42L);
+        final TargetPool first = new TargetPool();
+        final TargetPool second = new TargetPool();
+        try {
+            first.start();
+            second.start();
+            for (int i = 0; i < 2 * GameSettings.getTargetPoolSize(); i++) {
+                assertEquals(first.take(), second.take());
+            }
+        } finally {
+            first.stop();
+            second.stop();
+            new GameSettings().setRandomSeed(previousSeed);
+        }
+    }
+}
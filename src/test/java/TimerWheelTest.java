@@ -0,0 +1,59 @@
+import org.junit.Test;
+import ru.mail.park.websocket.heartbeat.TimerWheel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimerWheelTest {
+    private final TimerWheel<String> wheel = new TimerWheel<>(100, 4);
+    private final List<String> expired = new ArrayList<>();
+
+    @Test
+    public void expiresOnDeadlineTick() {
+        wheel.schedule("a", 250);
+        advance(2);
+        assertTrue(expired.isEmpty());
+        advance(1);
+        assertEquals("a", expired.get(0));
+        advance(10);
+        assertEquals(1, expired.size());
+    }
+
+    @Test
+    public void waitsForFullRounds() {
+        wheel.schedule("late", 1000);
+        wheel.schedule("early", 100);
+        advance(4);
+        assertEquals(1, expired.size());
+        assertEquals("early", expired.get(0));
+        advance(6);
+        assertEquals(2, expired.size());
+        assertEquals("late", expired.get(1));
+    }
+
+    @Test
+    public void reschedulesFromConsumer() {
+        wheel.schedule("a", 100);
+        for (int i = 0; i < 5; i++) {
+            wheel.advance(item -> {
+                expired.add(item);
+                wheel.schedule(item, 100);
+            });
+        }
+        assertEquals(5, expired.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsWheelSizeThatIsNotPowerOfTwo() {
+        new TimerWheel<String>(100, 6);
+    }
+
+    private void advance(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            wheel.advance(expired::add);
+        }
+    }
+}
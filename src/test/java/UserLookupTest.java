@@ -0,0 +1,133 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.mail.park.model.UserProfile;
+import ru.mail.park.services.UserLookup;
+import ru.mail.park.services.config.AccountSettings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class UserLookupTest {
+    private final AccountSettings settings = new AccountSettings();
+    private final AtomicInteger queries = new AtomicInteger();
+    private long ttl;
+    private int capacity;
+
+    @Before
+    public void init() {
+        ttl = AccountSettings.getUnknownLoginTtlMs();
+        capacity = AccountSettings.getUnknownLoginCapacity();
+        settings.setUnknownLoginTtlMs(10000);
+        settings.setUnknownLoginCapacity(100);
+    }
+
+    @After
+    public void restore() {
+        settings.setUnknownLoginTtlMs(ttl);
+        settings.setUnknownLoginCapacity(capacity);
+    }
+
+    @Test
+    public void concurrentLookupsShareOneQuery() throws Exception {
+        final CountDownLatch querying = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final UserLookup lookup = new UserLookup(login -> {
+            queries.incrementAndGet();
+            querying.countDown();
+            await(release);
+            return new UserProfile(1, login, "e", "p", 1000);
+        });
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<UserProfile>> lookups = new ArrayList<>();
+            lookups.add(executor.submit(() -> lookup.get("a")));
+            assertTrue(querying.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                lookups.add(executor.submit(() -> lookup.get("a")));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            final UserProfile first = lookups.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<UserProfile> other : lookups.subList(1, lookups.size())) {
+                final UserProfile user = other.get(5, TimeUnit.SECONDS);
+                assertEquals("a", user.getLogin());
+                assertNotSame(first, user);
+            }
+            assertEquals(1, queries.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void unknownLoginsAreRemembered() {
+        final UserLookup lookup = new UserLookup(login -> {
+            queries.incrementAndGet();
+            return null;
+        });
+        assertNull(lookup.get("ghost"));
+        assertNull(lookup.get("ghost"));
+        assertEquals(1, queries.get());
+        lookup.invalidate("ghost");
+        assertNull(lookup.get("ghost"));
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    public void unknownLoginsAreFoldedLikeTheDatabase() {
+        final UserLookup lookup = new UserLookup(login -> {
+            queries.incrementAndGet();
+            return null;
+        });
+        assertNull(lookup.get("ghost"));
+        assertNull(lookup.get("GHOST"));
+        assertEquals(1, queries.get());
+        lookup.invalidate("Ghost");
+        assertNull(lookup.get("ghost"));
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    public void unknownLoginsExpire() throws Exception {
+        settings.setUnknownLoginTtlMs(50);
+        final UserLookup lookup = new UserLookup(login -> {
+            queries.incrementAndGet();
+            return null;
+        });
+        lookup.get("ghost");
+        Thread.sleep(100);
+        lookup.get("ghost");
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    public void registrationDuringLookupIsNotHidden() {
+        final UserLookup[] lookup = new UserLookup[1];
+        lookup[0] = new UserLookup(login -> {
+            if (queries.incrementAndGet() == 1) {
+                lookup[0].invalidate(login);
+                return null;
+            }
+            return new UserProfile(1, login, "e", "p", 1000);
+        });
+        assertNull(lookup[0].get("new"));
+        assertNotNull(lookup[0].get("new"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
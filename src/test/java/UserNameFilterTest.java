@@ -0,0 +1,113 @@
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import ru.mail.park.main.ResponseCode;
+import ru.mail.park.model.UserProfile;
+import ru.mail.park.services.CountingBloomFilter;
+import ru.mail.park.services.UserNameFilter;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@SuppressWarnings("SpringJavaAutowiredMembersInspection")
+public class UserNameFilterTest extends AccountServiceMockedTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private UserNameFilter userNameFilter;
+
+    @Before
+    @Override
+    public void init() throws Exception {
+        super.init();
+        users.clear();
+        users.add(new UserProfile("a", "c", "b"));
+        userNameFilter.load();
+    }
+
+    @Test
+    public void filterNeverMissesAddedKeys() {
+        final CountingBloomFilter filter = new CountingBloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.add("user" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain("user" + i));
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue("false positives: " + falsePositives, falsePositives < 300);
+    }
+
+    @Test
+    public void filterForgetsRemovedKeys() {
+        final CountingBloomFilter filter = new CountingBloomFilter(100, 0.01);
+        filter.add("user");
+        filter.add("user");
+        filter.remove("user");
+        assertTrue(filter.mightContain("user"));
+        filter.remove("user");
+        assertFalse(filter.mightContain("user"));
+    }
+
+    @Test
+    public void freeNamesSkipTheDatabase() {
+        final JSONObject content = available("login=new&email=new@mail.ru").getJSONObject("content");
+        assertTrue(content.getBoolean("login"));
+        assertTrue(content.getBoolean("email"));
+        verify(accountService, never()).getUserByLogin("new");
+        verify(accountService, never()).getUserByEmail("new@mail.ru");
+    }
+
+    @Test
+    public void takenNamesAreNotAvailable() {
+        assertFalse(available("login=a").getJSONObject("content").getBoolean("login"));
+        final JSONObject content = available("email=c").getJSONObject("content");
+        assertFalse(content.getBoolean("email"));
+        assertFalse(content.has("login"));
+    }
+
+    @Test
+    public void availabilityNeedsAName() {
+        assertEquals(ResponseCode.PARAMETER_MISSING.getCode(), available("login=").getInt("code"));
+    }
+
+    @Test
+    public void registeredNamesAreTaken() {
+        assertEquals(ResponseCode.OK.getCode(), signup("q", "w", "e").getInt("code"));
+        users.clear();
+        userNameFilter.isLoginAvailable("Q");
+        userNameFilter.isEmailAvailable("E");
+        verify(accountService).getUserByLogin("Q");
+        verify(accountService).getUserByEmail("E");
+    }
+
+    @Test
+    public void takenNamesAreRefusedWithoutHashing() {
+        final JSONObject body = signup("a", "new", "new");
+        assertEquals(ResponseCode.DUPLICATE_USER.getCode(), body.getInt("code"));
+        verify(securityService, never()).encode(any());
+    }
+
+    private JSONObject available(String query) {
+        return new JSONObject(restTemplate.getForObject("/api/user/available?" + query, String.class));
+    }
+
+    private JSONObject signup(String login, String password, String email) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        final String request = new JSONObject().put("login", login).put("password", password).put("email", email)
+                .toString();
+        return new JSONObject(restTemplate.postForObject("/api/user/", new HttpEntity<>(request, headers),
+                String.class));
+    }
+}
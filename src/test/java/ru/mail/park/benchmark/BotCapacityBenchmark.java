@@ -0,0 +1,85 @@
+package ru.mail.park.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.mail.park.game.bot.BotPlayer;
+import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.game.mechanics.GameSession;
+import ru.mail.park.game.mechanics.Player;
+import ru.mail.park.game.mechanics.Square;
+import ru.mail.park.game.solver.Solver;
+import ru.mail.park.model.UserProfile;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bot turns across many concurrent bot games, each finished game replaced by a new one.
+ * A bot thread keeps up with about {@code turns per second * game.bot-move-interval-ms / 1000} games,
+ * which is the bot game capacity of a node per {@code game.bot-threads}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BotCapacityBenchmark {
+    private static final int GAME_COUNT = 256;
+    private static final UserProfile HUMAN = new UserProfile(1, "player", "player@mail.ru", "password", 0);
+
+    @Param({"0.7", "1"})
+    private double skill;
+    @Param({"3", "5"})
+    private int scramble;
+
+    private Solver solver;
+    private SplittableRandom random;
+    private GameSession[] games;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final GameSettings settings = new GameSettings();
+        settings.setSquareSize(8);
+        settings.setSquareMinValue(1);
+        settings.setSquareMaxValue(9);
+        settings.setSolverMaxDepth(8);
+        settings.setSolverMaxNodes(5_000_000);
+        solver = new Solver(1);
+        random = new SplittableRandom(42);
+        games = new GameSession[GAME_COUNT];
+        for (int i = 0; i < GAME_COUNT; i++) {
+            games[i] = newGame();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        solver.shutdown();
+    }
+
+    @Benchmark
+    public boolean turn() {
+        next = (next + 1) % GAME_COUNT;
+        final GameSession game = games[next];
+        final BotPlayer bot = (BotPlayer) game.getSecond();
+        game.processAction(bot, bot.nextMove(game.getTarget()));
+        if (game.isWinner(bot)) {
+            games[next] = newGame();
+            return true;
+        }
+        return false;
+    }
+
+    private GameSession newGame() {
+        return new GameSession(new Player(HUMAN), new BotPlayer(solver, skill, random.split()),
+                new Square(scramble, random));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BotCapacityBenchmark.class.getSimpleName()).build()).run();
+    }
+}
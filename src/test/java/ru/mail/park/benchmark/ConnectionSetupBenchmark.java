@@ -0,0 +1,97 @@
+package ru.mail.park.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.adapter.standard.StandardWebSocketSession;
+import org.springframework.web.socket.handler.PerConnectionWebSocketHandler;
+import ru.mail.park.game.GameMechService;
+import ru.mail.park.game.TargetPool;
+import ru.mail.park.game.bot.BotService;
+import ru.mail.park.game.journal.MoveJournal;
+import ru.mail.park.game.messaging.ServerSnapService;
+import ru.mail.park.model.UserProfile;
+import ru.mail.park.services.AccountService;
+import ru.mail.park.websocket.GameSocketHandler;
+import ru.mail.park.websocket.MessageHandlerService;
+import ru.mail.park.websocket.RemotePointService;
+import ru.mail.park.websocket.heartbeat.HeartbeatService;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Cost of opening and closing one game connection: a handler created per connection
+ * against the shared {@link GameSocketHandler}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConnectionSetupBenchmark {
+    private static final String LOGIN = "player";
+
+    private WebSocketHandler perConnectionHandler;
+    private WebSocketHandler sharedHandler;
+
+    @Setup
+    public void setUp() {
+        final AccountService accountService = mock(AccountService.class, withSettings().stubOnly());
+        when(accountService.getUserByLogin(LOGIN)).thenReturn(new UserProfile(LOGIN, "player@mail.ru", "password"));
+        final RemotePointService remotePointService = new RemotePointService();
+        final MessageHandlerService messageHandlerService = new MessageHandlerService();
+        final GameMechService gameMechService = new GameMechService(remotePointService,
+                new ServerSnapService(remotePointService), accountService, new TargetPool(),
+                mock(BotService.class, withSettings().stubOnly()),
+                new MoveJournal());
+        final HeartbeatService heartbeatService = mock(HeartbeatService.class, withSettings().stubOnly());
+
+        final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        final AutowiredAnnotationBeanPostProcessor autowiredProcessor = new AutowiredAnnotationBeanPostProcessor();
+        autowiredProcessor.setBeanFactory(beanFactory);
+        beanFactory.addBeanPostProcessor(autowiredProcessor);
+        beanFactory.registerSingleton("accountService", accountService);
+        beanFactory.registerSingleton("remotePointService", remotePointService);
+        beanFactory.registerSingleton("messageHandlerService", messageHandlerService);
+        beanFactory.registerSingleton("gameMechService", gameMechService);
+        beanFactory.registerSingleton("heartbeatService", heartbeatService);
+        final PerConnectionWebSocketHandler handler = new PerConnectionWebSocketHandler(GameSocketHandler.class);
+        handler.setBeanFactory(beanFactory);
+        perConnectionHandler = handler;
+        sharedHandler = new GameSocketHandler(accountService, remotePointService, messageHandlerService,
+                gameMechService, heartbeatService);
+    }
+
+    @Benchmark
+    public StandardWebSocketSession perConnection() throws Exception {
+        return connect(perConnectionHandler);
+    }
+
+    @Benchmark
+    public StandardWebSocketSession shared() throws Exception {
+        return connect(sharedHandler);
+    }
+
+    private static StandardWebSocketSession connect(WebSocketHandler handler) throws Exception {
+        final Map<String, Object> attributes = new HashMap<>();
+        attributes.put("login", LOGIN);
+        final StandardWebSocketSession session = new StandardWebSocketSession(null, attributes, null, null);
+        handler.afterConnectionEstablished(session);
+        handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+        return session;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ConnectionSetupBenchmark.class.getSimpleName()).build()).run();
+    }
+}
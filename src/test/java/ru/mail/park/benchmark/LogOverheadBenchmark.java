@@ -0,0 +1,97 @@
+package ru.mail.park.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.mail.park.logging.EventLog;
+import ru.mail.park.logging.config.LogSettings;
+import ru.mail.park.websocket.HandleException;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of logging per inbound message: the debug line of every handled message while debug is off,
+ * and the error line of every malformed message during a flood, written through a real layout to a discarding sink.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogOverheadBenchmark {
+    private static final String FRAME = "{\"type\":\"PlayerAction\",\"content\":"
+            + "\"{\\\"row\\\":1,\\\"col\\\":2,\\\"positive\\\":tru\"}";
+
+    private String type = "PlayerAction";
+    private String login = "player";
+    private String frame = FRAME;
+    private final Logger logger = LoggerFactory.getLogger(LogOverheadBenchmark.class);
+    private final EventLog handled = new EventLog(LogOverheadBenchmark.class, "message.handled", "type={} login={}");
+    private final EventLog rejected = new EventLog(LogOverheadBenchmark.class, "message.rejected",
+            "login={} reason={} cause={} frame={}");
+    private final HandleException exception = new HandleException("Can't read incoming message: " + FRAME,
+            new IllegalArgumentException("Unexpected end-of-input"));
+
+    @Setup
+    public void setUp() {
+        final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        final PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d %5p [%t] %logger{39} : %m%n");
+        encoder.start();
+        final OutputStreamAppender<ILoggingEvent> sink = new OutputStreamAppender<>();
+        sink.setContext(context);
+        sink.setEncoder(encoder);
+        sink.setOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        sink.start();
+        final ch.qos.logback.classic.Logger benchmarkLogger = context.getLogger(LogOverheadBenchmark.class);
+        benchmarkLogger.detachAndStopAllAppenders();
+        benchmarkLogger.setAdditive(false);
+        benchmarkLogger.setLevel(Level.INFO);
+        benchmarkLogger.addAppender(sink);
+        new LogSettings().setMaxPerSecond(20);
+        new LogSettings().setSampleEvery(100);
+    }
+
+    @Benchmark
+    public void concatenatedDebug() {
+        logger.debug("message handled: type =[" + type + "], content=[" + frame + ']');
+    }
+
+    @Benchmark
+    public void eventDebug() {
+        handled.debug(type, login);
+    }
+
+    @Benchmark
+    public void plainErrorFlood() {
+        logger.error("Can't handle message", exception);
+    }
+
+    @Benchmark
+    public void eventWarnFlood() {
+        rejected.warn(login, exception.getMessage(), exception.getCause(), EventLog.abbreviate(frame, 200));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LogOverheadBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,71 @@
+package ru.mail.park.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.web.socket.WebSocketSession;
+import ru.mail.park.game.GameMechService;
+import ru.mail.park.game.messaging.PlayerAction;
+import ru.mail.park.game.messaging.PlayerActionHandler;
+import ru.mail.park.model.UserProfile;
+import ru.mail.park.websocket.Connection;
+import ru.mail.park.websocket.Message;
+import ru.mail.park.websocket.MessageHandlerService;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Cost of decoding one player action frame: parsing the envelope and then its content string,
+ * against the single streaming pass.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageDecodeBenchmark {
+    private static final String FRAME = "{\"type\":\"PlayerAction\",\"content\":"
+            + "\"{\\\"row\\\":1,\\\"col\\\":2,\\\"positive\\\":true}\"}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MessageHandlerService messageHandlerService;
+    private PlayerActionHandler playerActionHandler;
+    private Connection connection;
+
+    @Setup
+    public void setUp() {
+        messageHandlerService = new MessageHandlerService();
+        playerActionHandler = new PlayerActionHandler(messageHandlerService,
+                mock(GameMechService.class, withSettings().stubOnly()));
+        messageHandlerService.registerHandler(PlayerAction.class, playerActionHandler);
+        connection = new Connection(new UserProfile("player", "player@mail.ru", "password"),
+                mock(WebSocketSession.class, withSettings().stubOnly()));
+    }
+
+    /**
+     * The decoding the service did before the streaming pass: the envelope, then its content by data binding.
+     */
+    @Benchmark
+    public Connection twoPass() throws Exception {
+        final Message message = objectMapper.readValue(FRAME, Message.class);
+        Class.forName("ru.mail.park.game.messaging." + message.getType());
+        playerActionHandler.handle(objectMapper.readValue(message.getContent(), PlayerAction.class), connection);
+        return connection;
+    }
+
+    @Benchmark
+    public Connection streaming() throws Exception {
+        messageHandlerService.handle(FRAME, connection);
+        return connection;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MessageDecodeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
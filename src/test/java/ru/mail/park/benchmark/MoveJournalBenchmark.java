@@ -0,0 +1,76 @@
+package ru.mail.park.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.game.journal.MoveJournal;
+import ru.mail.park.game.mechanics.GameSession;
+import ru.mail.park.game.mechanics.Player;
+import ru.mail.park.game.mechanics.Square;
+import ru.mail.park.game.messaging.PlayerAction;
+import ru.mail.park.model.UserProfile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journaling one move, as done while the session is locked. Run with {@code -prof gc} to see allocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoveJournalBenchmark {
+    private static final long SEGMENT_BYTES = 64 << 20;
+
+    private Path directory;
+    private MoveJournal journal;
+    private GameSession session;
+    private PlayerAction action;
+
+    @Setup
+    public void setUp() throws IOException {
+        final GameSettings settings = new GameSettings();
+        settings.setSquareSize(8);
+        settings.setSquareMinValue(1);
+        settings.setSquareMaxValue(9);
+        directory = Files.createTempDirectory("journal");
+        journal = new MoveJournal();
+        journal.open(directory, SEGMENT_BYTES);
+        session = new GameSession(new Player(new UserProfile(1, "first", null, null, 0)),
+                new Player(new UserProfile(2, "second", null, null, 0)), new Square(3));
+        journal.started(session);
+        action = new PlayerAction();
+        action.setRow(3);
+        action.setCol(4);
+        action.setPositive(true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        journal.close();
+        final File[] segments = directory.toFile().listFiles();
+        if (segments != null) {
+            for (File segment : segments) {
+                segment.delete();
+            }
+        }
+        directory.toFile().delete();
+    }
+
+    @Benchmark
+    public void moved() {
+        journal.moved(session, session.getFirst(), action);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MoveJournalBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,65 @@
+package ru.mail.park.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.game.mechanics.Square;
+import ru.mail.park.game.solver.Solver;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rating a freshly scrambled target, as matchmaking would, with a sequential and a parallel solver.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SolverBenchmark {
+    private static final int TARGET_COUNT = 256;
+
+    @Param({"2", "3", "4", "6"})
+    private int scramble;
+    @Param({"1", "4"})
+    private int parallelism;
+
+    private Solver solver;
+    private Square[] targets;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final GameSettings settings = new GameSettings();
+        settings.setSquareSize(8);
+        settings.setSquareMinValue(1);
+        settings.setSquareMaxValue(9);
+        settings.setSolverMaxDepth(8);
+        settings.setSolverMaxNodes(50_000_000);
+        solver = new Solver(parallelism);
+        final SplittableRandom random = new SplittableRandom(42);
+        targets = new Square[TARGET_COUNT];
+        for (int i = 0; i < TARGET_COUNT; i++) {
+            targets[i] = new Square(scramble, random);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        solver.shutdown();
+    }
+
+    @Benchmark
+    public int rate() {
+        next = (next + 1) % TARGET_COUNT;
+        return solver.rate(targets[next]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SolverBenchmark.class.getSimpleName()).build()).run();
+    }
+}
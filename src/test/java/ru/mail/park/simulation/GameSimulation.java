@@ -0,0 +1,364 @@
+package ru.mail.park.simulation;
+
+import com.sun.management.ThreadMXBean;
+import ru.mail.park.game.GameMechService;
+import ru.mail.park.game.TargetPool;
+import ru.mail.park.game.bot.BotService;
+import ru.mail.park.game.config.GameSettings;
+import ru.mail.park.game.journal.MoveJournal;
+import ru.mail.park.game.mechanics.GameSession;
+import ru.mail.park.game.mechanics.Player;
+import ru.mail.park.game.mechanics.Square;
+import ru.mail.park.game.messaging.PlayerAction;
+import ru.mail.park.game.messaging.ServerSnapService;
+import ru.mail.park.model.UserProfile;
+import ru.mail.park.services.AccountService;
+import ru.mail.park.websocket.Connection;
+import ru.mail.park.websocket.RemotePointService;
+import ru.mail.park.websocket.SlowConsumerPolicy;
+import ru.mail.park.websocket.config.WebSocketSettings;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays seeded games end to end through {@link GameMechService}, {@link GameSession} and {@link ServerSnapService}
+ * with in-memory websockets and accounts, to measure game throughput without a network or a database.
+ * Game n always has the same target and the same moves: one player replays the scramble of the target,
+ * the other moves at random, so the checksum of the outcomes is the same for any number of threads.
+ * Worker k plays games k, k + threads, ... with its own two players, and pairs them under one lock
+ * so that matchmaking never mixes up players of different workers.
+ */
+public class GameSimulation {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private final long seed;
+    private final int threads;
+    private final RemotePointService remotePointService = new RemotePointService();
+    private final InMemoryAccountService accountService = new InMemoryAccountService();
+    private final ThreadLocal<Square> nextTarget = new ThreadLocal<>();
+    private final Object matchmaking = new Object();
+    private final GameMechService gameMechService;
+
+    /**
+     * Reads the static settings, which must be bound or set with {@link #useDefaultSettings} first.
+     */
+    public GameSimulation(long seed, int threads) {
+        this.seed = seed;
+        this.threads = threads;
+        final TargetPool targetPool = new TargetPool() {
+            @Override
+            public Square take() {
+                return nextTarget.get();
+            }
+        };
+        gameMechService = new GameMechService(remotePointService, new ServerSnapService(remotePointService),
+                accountService, targetPool, new BotService(), new MoveJournal());
+    }
+
+    /**
+     * Settings of a default deployment, for running outside of the application context.
+     */
+    public static void useDefaultSettings() {
+        final GameSettings gameSettings = new GameSettings();
+        gameSettings.setSquareSize(8);
+        gameSettings.setSquareMinValue(1);
+        gameSettings.setSquareMaxValue(9);
+        gameSettings.setTargetScramble(5);
+        gameSettings.setRankBounty(25);
+        final WebSocketSettings webSocketSettings = new WebSocketSettings();
+        webSocketSettings.setSendQueueCapacity(16);
+        webSocketSettings.setSlowConsumerPolicy(SlowConsumerPolicy.DROP_STALE);
+    }
+
+    public void shutdown() {
+        gameMechService.stop();
+    }
+
+    /**
+     * @return stored profiles of the simulated players, named {@code sim-<worker>-a} and {@code sim-<worker>-b}
+     */
+    public AccountService getAccountService() {
+        return accountService;
+    }
+
+    /**
+     * @throws IllegalStateException if a game could not be played to the end
+     */
+    public Result run(long games) throws InterruptedException {
+        final ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (threadBean.isThreadContentionMonitoringSupported()) {
+            threadBean.setThreadContentionMonitoringEnabled(true);
+        }
+        final Worker[] workers = new Worker[threads];
+        final Thread[] workerThreads = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(i, games, threadBean);
+            workerThreads[i] = new Thread(workers[i], "simulation-" + i);
+        }
+        final long startedAt = System.nanoTime();
+        for (Thread thread : workerThreads) {
+            thread.start();
+        }
+        for (Thread thread : workerThreads) {
+            thread.join();
+        }
+        final Result result = new Result(System.nanoTime() - startedAt);
+        for (Worker worker : workers) {
+            if (worker.failure != null) {
+                throw new IllegalStateException("simulation worker " + worker.index + " failed", worker.failure);
+            }
+            result.add(worker);
+        }
+        return result;
+    }
+
+    private UserProfile player(String login) {
+        if (accountService.getUserByLogin(login) == null) {
+            accountService.addUser(login, login, login + "@simulation");
+        }
+        return accountService.getUserByLogin(login);
+    }
+
+    private final class Worker implements Runnable {
+        private final int index;
+        private final long games;
+        private final ThreadMXBean threadBean;
+        private final UserProfile firstUser;
+        private final UserProfile secondUser;
+        private final PlayerAction[] solution;
+        private long played;
+        private long moves;
+        private long solverWins;
+        private long messages;
+        private long chars;
+        private long checksum;
+        private long allocatedBytes;
+        private long blockedCount;
+        private long blockedMs;
+        private Throwable failure;
+
+        private Worker(int index, long games, ThreadMXBean threadBean) {
+            this.index = index;
+            this.games = games;
+            this.threadBean = threadBean;
+            firstUser = player("sim-" + index + "-a");
+            secondUser = player("sim-" + index + "-b");
+            solution = new PlayerAction[GameSettings.getTargetScramble()];
+            for (int i = 0; i < solution.length; i++) {
+                solution[i] = new PlayerAction();
+                solution[i].setPositive(true);
+            }
+        }
+
+        @Override
+        public void run() {
+            final long threadId = Thread.currentThread().getId();
+            final long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+            try {
+                for (long game = index; game < games; game += threads) {
+                    play(game);
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            allocatedBytes = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            final ThreadInfo info = threadBean.getThreadInfo(threadId);
+            blockedCount = info.getBlockedCount();
+            blockedMs = Math.max(0, info.getBlockedTime());
+        }
+
+        private void play(long game) {
+            final SplittableRandom random = new SplittableRandom(seed + game * GOLDEN_GAMMA);
+            final int size = GameSettings.getSquareSize();
+            final Square target = new Square();
+            for (PlayerAction move : solution) {
+                move.setRow(random.nextInt(size));
+                move.setCol(random.nextInt(size));
+                target.activate(move.getRow(), move.getCol(), 2, 1);
+            }
+            nextTarget.set(target);
+            final InMemorySocket firstSocket = new InMemorySocket(firstUser.getLogin());
+            final InMemorySocket secondSocket = new InMemorySocket(secondUser.getLogin());
+            final Connection first = connect(firstUser, firstSocket);
+            final Connection second = connect(secondUser, secondSocket);
+            synchronized (matchmaking) {
+                gameMechService.addPlayer(first);
+                gameMechService.addPlayer(second);
+            }
+            final GameSession session = first.getGameSession();
+            if (session == null || session != second.getGameSession()) {
+                throw new IllegalStateException("players of game " + game + " were not paired together");
+            }
+            final boolean firstSolves = random.nextBoolean();
+            final Connection solving = firstSolves ? first : second;
+            final Connection opponent = firstSolves ? second : first;
+            final Player solvingPlayer = solving.getPlayer();
+            final Player opponentPlayer = opponent.getPlayer();
+            final PlayerAction randomMove = opponent.getInboundAction();
+            int gameMoves = 0;
+            for (int step = 0; !session.isOver(); step++) {
+                if (step == solution.length) {
+                    throw new IllegalStateException("game " + game + " did not end after replaying its target");
+                }
+                randomMove.setRow(random.nextInt(size));
+                randomMove.setCol(random.nextInt(size));
+                randomMove.setPositive(random.nextBoolean());
+                gameMechService.addPlayerAction(opponent, randomMove);
+                gameMoves++;
+                if (!session.isOver()) {
+                    gameMechService.addPlayerAction(solving, solution[step]);
+                    gameMoves++;
+                }
+            }
+            final boolean solverWon = session.isWinner(solvingPlayer);
+            played++;
+            moves += gameMoves;
+            solverWins += solverWon ? 1 : 0;
+            messages += firstSocket.getMessages() + secondSocket.getMessages();
+            chars += firstSocket.getChars() + secondSocket.getChars();
+            long outcome = gameMoves << 1 | (solverWon ? 1 : 0);
+            final Square opponentSquare = opponentPlayer.getSquare();
+            for (int word = 0; word < (size * size + 15) / 16; word++) {
+                outcome = mix(outcome ^ opponentSquare.getPackedWord(word));
+            }
+            checksum += mix(outcome + game * GOLDEN_GAMMA);
+        }
+
+        private Connection connect(UserProfile user, InMemorySocket socket) {
+            final Connection connection = new Connection(user, socket);
+            remotePointService.register(connection);
+            return connection;
+        }
+    }
+
+    private static long mix(long value) {
+        long mixed = (value ^ value >>> 30) * 0xBF58476D1CE4E5B9L;
+        mixed = (mixed ^ mixed >>> 27) * 0x94D049BB133111EBL;
+        return mixed ^ mixed >>> 31;
+    }
+
+    /**
+     * Totals of all workers. Allocation and lock contention are those of the worker threads only,
+     * contention includes waiting for the matchmaking lock of the simulation.
+     */
+    public static final class Result {
+        private final long elapsedNanos;
+        private long games;
+        private long moves;
+        private long solverWins;
+        private long messages;
+        private long chars;
+        private long checksum;
+        private long allocatedBytes;
+        private long blockedCount;
+        private long blockedMs;
+
+        private Result(long elapsedNanos) {
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        private void add(Worker worker) {
+            games += worker.played;
+            moves += worker.moves;
+            solverWins += worker.solverWins;
+            messages += worker.messages;
+            chars += worker.chars;
+            checksum += worker.checksum;
+            allocatedBytes += worker.allocatedBytes;
+            blockedCount += worker.blockedCount;
+            blockedMs += worker.blockedMs;
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public long getMoves() {
+            return moves;
+        }
+
+        /**
+         * @return games won by the player replaying the target rather than by the one moving at random
+         */
+        public long getSolverWins() {
+            return solverWins;
+        }
+
+        public long getMessages() {
+            return messages;
+        }
+
+        /**
+         * @return the same for the same seed and number of games, however many threads played them
+         */
+        public long getChecksum() {
+            return checksum;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public long getBlockedCount() {
+            return blockedCount;
+        }
+
+        public long getBlockedMs() {
+            return blockedMs;
+        }
+
+        public double getGamesPerSecond() {
+            return perSecond(games);
+        }
+
+        public double getMovesPerSecond() {
+            return perSecond(moves);
+        }
+
+        public double getAllocatedBytesPerSecond() {
+            return perSecond(allocatedBytes);
+        }
+
+        private double perSecond(long count) {
+            return count * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("games       %,d in %.1f s, %,.0f games/s, %,d won by the solver%n"
+                            + "moves       %,d, %,.0f moves/s%n"
+                            + "messages    %,d, %,.0f messages/s, %,.1f MB/s of text%n"
+                            + "allocated   %,.1f MB/s, %,.0f bytes per move%n"
+                            + "contention  %,d blocked on a lock, %,d ms blocked%n"
+                            + "checksum    %016x",
+                    games, elapsedNanos / 1e9, getGamesPerSecond(), solverWins,
+                    moves, getMovesPerSecond(),
+                    messages, perSecond(messages), perSecond(chars) / 1e6,
+                    getAllocatedBytesPerSecond() / 1e6, allocatedBytes / (double) Math.max(1, moves),
+                    blockedCount, blockedMs,
+                    checksum);
+        }
+    }
+
+    /**
+     * Arguments are the number of games, of threads and the seed. A tenth of the games is played first
+     * to warm up the JIT.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        final long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        useDefaultSettings();
+        final GameSimulation warmup = new GameSimulation(seed, threads);
+        warmup.run(games / 10);
+        warmup.shutdown();
+        final GameSimulation simulation = new GameSimulation(seed, threads);
+        try {
+            System.out.println(simulation.run(games));
+        } finally {
+            simulation.shutdown();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package ru.mail.park.simulation;
+
+import ru.mail.park.model.UserProfile;
+import ru.mail.park.model.exception.UserAlreadyExistsException;
+import ru.mail.park.services.AccountService;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Accounts kept in a map instead of the database. Like the database, it hands out copies,
+ * so ranks changed on a profile in play are stored only through {@link #updateUser} or {@link #transferRank}.
+ */
+public class InMemoryAccountService implements AccountService {
+    private final Map<String, UserProfile> users = new ConcurrentHashMap<>();
+    private final AtomicInteger ids = new AtomicInteger();
+
+    @Override
+    public void addUser(String login, String password, String email) {
+        final UserProfile added = new UserProfile(ids.incrementAndGet(), login, email, password, 0);
+        if (users.putIfAbsent(login, added) != null) {
+            throw new UserAlreadyExistsException();
+        }
+    }
+
+    @Override
+    public UserProfile getUserByLogin(String login) {
+        final UserProfile stored = users.get(login);
+        return stored == null ? null : copy(stored, stored.getRank());
+    }
+
+    @Override
+    public UserProfile getUserByEmail(String email) {
+        return users.values().stream()
+                .filter(user -> user.getEmail().equals(email))
+                .findAny()
+                .map(user -> copy(user, user.getRank()))
+                .orElse(null);
+    }
+
+    @Override
+    public void forEachLoginAndEmail(BiConsumer<String, String> consumer) {
+        users.values().forEach(user -> consumer.accept(user.getLogin(), user.getEmail()));
+    }
+
+    @Override
+    public List<UserProfile> getTopRanked(int limit) {
+        Stream<UserProfile> sorted = users.values().stream()
+                .sorted(Comparator.comparingInt(UserProfile::getRank).reversed());
+        if (limit > 0) {
+            sorted = sorted.limit(limit);
+        }
+        return sorted.map(user -> copy(user, user.getRank())).collect(Collectors.toList());
+    }
+
+    @Override
+    public void updateUser(UserProfile userProfile) {
+        users.computeIfPresent(userProfile.getLogin(), (login, stored) -> copy(stored, userProfile.getRank()));
+    }
+
+    @Override
+    public void updateUsers(List<UserProfile> userProfiles) {
+        userProfiles.forEach(this::updateUser);
+    }
+
+    @Override
+    public void transferRank(UserProfile winner, UserProfile loser, int amount) {
+        users.computeIfPresent(winner.getLogin(), (login, stored) -> copy(stored, stored.getRank() + amount));
+        users.computeIfPresent(loser.getLogin(), (login, stored) -> copy(stored, stored.getRank() - amount));
+    }
+
+    private static UserProfile copy(UserProfile user, int rank) {
+        return new UserProfile(user.getId(), user.getLogin(), user.getEmail(), user.getPassword(), rank);
+    }
+}
@@ -0,0 +1,297 @@
+package ru.mail.park.simulation;
+
+import org.eclipse.jetty.websocket.api.BatchMode;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.SuspendToken;
+import org.eclipse.jetty.websocket.api.UpgradeRequest;
+import org.eclipse.jetty.websocket.api.UpgradeResponse;
+import org.eclipse.jetty.websocket.api.WebSocketPolicy;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * A game websocket that completes every write on the calling thread and only counts what it was sent,
+ * so a simulated game runs the real {@link ru.mail.park.websocket.OutboundQueue} without a network.
+ * Not thread safe: both players of a simulated game are driven by the same thread.
+ */
+public class InMemorySocket implements NativeWebSocketSession {
+    private final String id;
+    private final Map<String, Object> attributes = new HashMap<>();
+    private final JettySession jettySession = new JettySession();
+    private final Remote remote = new Remote();
+    private boolean open = true;
+    private long messages;
+    private long chars;
+
+    public InMemorySocket(String id) {
+        this.id = id;
+    }
+
+    public long getMessages() {
+        return messages;
+    }
+
+    public long getChars() {
+        return chars;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public URI getUri() {
+        return null;
+    }
+
+    @Override
+    public HttpHeaders getHandshakeHeaders() {
+        return new HttpHeaders();
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public Principal getPrincipal() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return null;
+    }
+
+    @Override
+    public String getAcceptedProtocol() {
+        return null;
+    }
+
+    @Override
+    public void setTextMessageSizeLimit(int messageSizeLimit) {
+    }
+
+    @Override
+    public int getTextMessageSizeLimit() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+    }
+
+    @Override
+    public int getBinaryMessageSizeLimit() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public List<WebSocketExtension> getExtensions() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        throw new UnsupportedOperationException("game messages are sent through the native session");
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+
+    @Override
+    public void close(CloseStatus status) {
+        open = false;
+    }
+
+    @Override
+    public Object getNativeSession() {
+        return jettySession;
+    }
+
+    @Override
+    public <T> T getNativeSession(Class<T> requiredType) {
+        return requiredType.isInstance(jettySession) ? requiredType.cast(jettySession) : null;
+    }
+
+    private final class JettySession implements Session {
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        @Override
+        public void close(org.eclipse.jetty.websocket.api.CloseStatus closeStatus) {
+            open = false;
+        }
+
+        @Override
+        public void close(int statusCode, String reason) {
+            open = false;
+        }
+
+        @Override
+        public void disconnect() {
+            open = false;
+        }
+
+        @Override
+        public long getIdleTimeout() {
+            return 0;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public WebSocketPolicy getPolicy() {
+            return null;
+        }
+
+        @Override
+        public String getProtocolVersion() {
+            return null;
+        }
+
+        @Override
+        public RemoteEndpoint getRemote() {
+            return remote;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public UpgradeRequest getUpgradeRequest() {
+            return null;
+        }
+
+        @Override
+        public UpgradeResponse getUpgradeResponse() {
+            return null;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public boolean isSecure() {
+            return false;
+        }
+
+        @Override
+        public void setIdleTimeout(long ms) {
+        }
+
+        @Override
+        public SuspendToken suspend() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private final class Remote implements RemoteEndpoint {
+        @Override
+        public void sendString(String text, WriteCallback callback) {
+            messages++;
+            chars += text.length();
+            callback.writeSuccess();
+        }
+
+        @Override
+        public void sendString(String text) {
+            messages++;
+            chars += text.length();
+        }
+
+        @Override
+        public void sendBytes(ByteBuffer data) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<Void> sendBytesByFuture(ByteBuffer data) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void sendBytes(ByteBuffer data, WriteCallback callback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void sendPartialBytes(ByteBuffer fragment, boolean isLast) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void sendPartialString(String fragment, boolean isLast) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void sendPing(ByteBuffer applicationData) {
+        }
+
+        @Override
+        public void sendPong(ByteBuffer applicationData) {
+        }
+
+        @Override
+        public Future<Void> sendStringByFuture(String text) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public BatchMode getBatchMode() {
+            return BatchMode.OFF;
+        }
+
+        @Override
+        public void setBatchMode(BatchMode batchMode) {
+        }
+
+        @Override
+        public InetSocketAddress getInetSocketAddress() {
+            return null;
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}